@@ -0,0 +1,169 @@
+package me.htna.project.chatdecorator.benchmark;
+
+import me.htna.project.chatdecorator.database.ChatLogPartitions;
+import me.htna.project.chatdecorator.database.H2Embedded;
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+import me.htna.project.chatdecorator.database.entities.MUTEINFO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Chat log and mute info query latency against a seeded database
+ * <p>
+ * schemaVersion 1 is the schema of the old prebuilt asset without indexes, 2 has the composite indexes.
+ * Chat logs are seeded into the daily partition tables.
+ * Seed size can be changed with {@code -p rows=5000000}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatLogQueryBenchmark {
+
+    private static final int USER_COUNT = 1000;
+    private static final int MUTE_PER_USER = 5;
+    private static final int SEED_BATCH_SIZE = 10000;
+
+    /**
+     * Seeded chat log period (unit: second)
+     */
+    private static final long SEED_PERIOD = 30L * 24 * 60 * 60;
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"1", "2"})
+    public int schemaVersion;
+
+    private Path directory;
+    private H2Embedded db;
+    private String[] uuids;
+    private Instant start;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException, IOException, SQLException {
+        SpongeFixture.init();
+
+        directory = Files.createTempDirectory("chatdeco-bench");
+        db = new H2Embedded();
+
+        db.connect(directory.resolve("chatdeco.h2"), 4, 32);
+
+        Random random = new Random(42);
+        uuids = new String[USER_COUNT];
+        for (int i = 0; i < USER_COUNT; i++)
+            uuids[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+
+        start = Instant.now().minusSeconds(SEED_PERIOD);
+        seed(random);
+
+        // 버전 1 스키마에는 인덱스가 없음
+        if (schemaVersion == 1) {
+            try (Connection connection = db.openConnection()) {
+                for (ChatLogPartitions.Partition partition : db.getChatLogPartitions().getPartitions(connection))
+                    connection.createStatement().execute("DROP INDEX IF EXISTS IDX_" + partition.getTable() + "_UUID_DATETIME");
+                connection.createStatement().execute("DROP INDEX IF EXISTS IDX_MUTEINFO_UUID_IDX");
+            }
+        }
+    }
+
+    private void seed(Random random) throws SQLException {
+        ChatLogPartitions partitions = db.getChatLogPartitions();
+        try (Connection connection = db.openConnection()) {
+            connection.setAutoCommit(false);
+            Map<String, PreparedStatement> statements = new HashMap<>();
+            for (int i = 0; i < rows; i++) {
+                Instant datetime = start.plusSeconds(SEED_PERIOD * i / rows);
+                String table = partitions.getTableName(datetime);
+                PreparedStatement pstat = statements.get(table);
+                if (pstat == null) {
+                    partitions.ensureTable(connection, table);
+                    pstat = connection.prepareStatement(H2Embedded.makeChatLogInsertQuery(table));
+                    statements.put(table, pstat);
+                }
+
+                pstat.setString(1, uuids[random.nextInt(USER_COUNT)]);
+                pstat.setTimestamp(2, Timestamp.from(datetime));
+                pstat.setString(3, "benchmark chat message #" + i);
+                pstat.setInt(4, CHATLOG.Reason.SUCCESS.getValue());
+                pstat.executeUpdate();
+                if ((i + 1) % SEED_BATCH_SIZE == 0)
+                    connection.commit();
+            }
+            for (PreparedStatement pstat : statements.values())
+                pstat.close();
+
+            try (PreparedStatement pstat = connection.prepareStatement(
+                    "INSERT INTO MUTEINFO (UUID, MUTE_SOURCE, MUTE_DATE, REASON, UNMUTE_SOURCE, UNMUTE_DATE) VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < USER_COUNT * MUTE_PER_USER; i++) {
+                    Instant muteDate = start.plusSeconds(random.nextInt((int) SEED_PERIOD));
+                    pstat.setString(1, uuids[i % USER_COUNT]);
+                    pstat.setString(2, uuids[random.nextInt(USER_COUNT)]);
+                    pstat.setTimestamp(3, Timestamp.from(muteDate));
+                    pstat.setString(4, "benchmark");
+                    pstat.setString(5, uuids[random.nextInt(USER_COUNT)]);
+                    pstat.setTimestamp(6, Timestamp.from(muteDate.plusSeconds(600)));
+                    pstat.addBatch();
+                }
+                pstat.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        db.disconnect();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(x -> x.toFile().delete());
+        }
+    }
+
+    /**
+     * /cd log: 20 rows of a user from a random datetime
+     */
+    @Benchmark
+    public List<CHATLOG> selectChatLog() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Instant from = start.plusSeconds(random.nextLong(SEED_PERIOD));
+        return db.selectChatLog(uuids[random.nextInt(USER_COUNT)], from, 20);
+    }
+
+    /**
+     * Mute history of a user
+     */
+    @Benchmark
+    public List<MUTEINFO> selectMuteInfo() throws SQLException {
+        return db.selectMuteInfo(uuids[ThreadLocalRandom.current().nextInt(USER_COUNT)]);
+    }
+}
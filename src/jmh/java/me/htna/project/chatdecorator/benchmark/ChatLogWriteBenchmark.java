@@ -0,0 +1,109 @@
+package me.htna.project.chatdecorator.benchmark;
+
+import me.htna.project.chatdecorator.Config;
+import me.htna.project.chatdecorator.database.ChatLogStore;
+import me.htna.project.chatdecorator.database.H2Embedded;
+import me.htna.project.chatdecorator.database.SegmentChatLogStore;
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Chat log write throughput of the chat log stores
+ * <p>
+ * One invocation writes a batch of the chat log writer, the score is chat logs per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatLogWriteBenchmark {
+
+    private static final int USER_COUNT = 1000;
+    private static final int BATCH_SIZE = Config.DEFAULT_CHATLOG_BATCHSIZE;
+
+    @Param({Config.CHATLOG_STORE_H2, Config.CHATLOG_STORE_SEGMENT})
+    public String store;
+
+    private Path directory;
+    private H2Embedded db;
+    private ChatLogStore chatLogStore;
+    private List<CHATLOG> batch;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException, IOException, SQLException {
+        SpongeFixture.init();
+
+        directory = Files.createTempDirectory("chatdeco-bench");
+        db = new H2Embedded();
+        db.connect(directory.resolve("chatdeco.h2"), 4, 32);
+
+        if (store.equals(Config.CHATLOG_STORE_SEGMENT)) {
+            SegmentChatLogStore segmentStore = new SegmentChatLogStore(directory.resolve("chatlog"), Config.DEFAULT_CHATLOG_SEGMENTSIZE);
+            segmentStore.open();
+            chatLogStore = segmentStore;
+        } else {
+            chatLogStore = db;
+        }
+
+        Random random = new Random(42);
+        String[] uuids = new String[USER_COUNT];
+        for (int i = 0; i < USER_COUNT; i++)
+            uuids[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        Instant now = Instant.now();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            CHATLOG log = new CHATLOG();
+            log.setUuid(uuids[random.nextInt(USER_COUNT)]);
+            log.setDatetime(now.plusMillis(i));
+            log.setContent("benchmark chat message #" + i);
+            log.setResult(CHATLOG.Reason.SUCCESS);
+            batch.add(log);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        chatLogStore.close();
+        db.disconnect();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(x -> x.toFile().delete());
+        }
+    }
+
+    /**
+     * One batch of the chat log writer
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertChatLogs() throws SQLException {
+        chatLogStore.insertChatLogs(batch);
+    }
+}
@@ -0,0 +1,97 @@
+package me.htna.project.chatdecorator.benchmark;
+
+import me.htna.project.chatdecorator.placeholderHandlers.FixedPointFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FixedPointFormat#append(StringBuilder, double, int)} against {@link String#format(String, Object...)}
+ * <p>
+ * The setup compares both over a sweep of values and fraction digits, and fails the run on any difference.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FixedPointFormatBenchmark {
+
+    @Param({"0", "2", "4"})
+    public int fractionDigits;
+
+    private final StringBuilder sb = new StringBuilder();
+    private String pattern;
+    private double[] values;
+    private int index;
+
+    @Setup
+    public void setup() {
+        check();
+
+        pattern = "%." + fractionDigits + "f";
+        values = new double[1024];
+        Random random = new Random(1);
+        for (int i = 0; i < values.length; i++)
+            values[i] = random.nextDouble() * 100;
+    }
+
+    /**
+     * Compare with {@link String#format(String, Object...)}
+     * <p>
+     * Decimals with 3 fraction digits have the ties of 2 digits, ex) 1.005, 0.145, 12.345.
+     * Ties of every digit count, random values of every magnitude and the limits are checked too.
+     */
+    private static void check() {
+        Random random = new Random(7);
+        for (int digits = 0; digits <= FixedPointFormat.MAX_FRACTION_DIGITS; digits++) {
+            for (int k = -20_000; k <= 20_000; k++)
+                check(k / 1000.0, digits);
+
+            double tie = 5 / Math.pow(10, digits + 1);
+            for (int k = 0; k < 5_000; k++) {
+                check(k / Math.pow(10, digits) + tie, digits);
+                check(random.nextInt(1_000_000) + tie, digits);
+            }
+
+            for (int k = 0; k < 10_000; k++) {
+                double value = random.nextDouble() * Math.pow(10, random.nextInt(28) - 12);
+                check(random.nextBoolean() ? value : -value, digits);
+            }
+
+            for (double value : new double[]{0.0, -0.0, -0.001, 1e-20, -1e-20, 0.5, 2.5, -2.5, 1e12, 1e15, 1e16, 9.223372036854775e18})
+                check(value, digits);
+        }
+    }
+
+    private static void check(double value, int digits) {
+        String expected = String.format(Locale.ROOT, "%." + digits + "f", value);
+        String actual = FixedPointFormat.append(new StringBuilder(), value, digits).toString();
+        if (!expected.equals(actual))
+            throw new IllegalStateException("FixedPointFormat " + value + " (" + digits + " digits): " + actual + ", expected " + expected);
+    }
+
+    @Benchmark
+    public StringBuilder fixedPoint() {
+        sb.setLength(0);
+        return FixedPointFormat.append(sb, values[index++ & 1023], fractionDigits);
+    }
+
+    @Benchmark
+    public String format() {
+        return String.format(Locale.ROOT, pattern, values[index++ & 1023]);
+    }
+}
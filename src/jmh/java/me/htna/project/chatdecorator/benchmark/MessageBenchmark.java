@@ -0,0 +1,63 @@
+package me.htna.project.chatdecorator.benchmark;
+
+import me.htna.project.chatdecorator.struct.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spongepowered.api.entity.living.player.Player;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Message} construction against stubbed {@link Player}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageBenchmark {
+
+    private Player player;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        SpongeFixture.init();
+        player = SpongeFixture.createPlayer("Benchmarker");
+    }
+
+    /**
+     * Template uses only %username%
+     */
+    @Benchmark
+    public Message construct() {
+        return new Message(player);
+    }
+
+    /**
+     * Template uses every player field
+     */
+    @Benchmark
+    public void constructAndReadAll(Blackhole bh) {
+        Message msg = new Message(player);
+        bh.consume(msg.getUserName());
+        bh.consume(msg.getNickName());
+        bh.consume(msg.getJoinDate());
+        bh.consume(msg.getLastDate());
+        bh.consume(msg.getLocale());
+        bh.consume(msg.getLoc_X());
+        bh.consume(msg.getLoc_Y());
+        bh.consume(msg.getLoc_Z());
+        bh.consume(msg.getMaxHealth());
+        bh.consume(msg.getCurrentHealth());
+    }
+}
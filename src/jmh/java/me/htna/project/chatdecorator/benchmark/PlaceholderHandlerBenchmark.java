@@ -0,0 +1,55 @@
+package me.htna.project.chatdecorator.benchmark;
+
+import me.htna.project.chatdecorator.placeholderHandlers.DefaultPlaceholderHandler;
+import me.htna.project.chatdecorator.struct.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.entity.living.player.Player;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DefaultPlaceholderHandler#replace(String, Message)} per key, without memoization
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlaceholderHandlerBenchmark {
+
+    @Param({
+            "username", "nickname", "joindate", "locale", "loc_x", "currenthealth", "message",
+            "server_ping", "server_player_count", "server_datetime", "server_tps",
+            "server_usecpu_percent", "server_usemem_gb", "server_usecpu_15m",
+            "mute_reason", "first_join_datetime", "playtime_total_minute"
+    })
+    public String key;
+
+    private DefaultPlaceholderHandler handler;
+    private String placeholder;
+    private Player player;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        SpongeFixture.init();
+        handler = new DefaultPlaceholderHandler();
+        placeholder = "%" + key + "%";
+        player = SpongeFixture.createPlayer("Benchmarker");
+    }
+
+    @Benchmark
+    public String replace() {
+        return handler.replace(placeholder, new Message(player));
+    }
+}
@@ -0,0 +1,204 @@
+package me.htna.project.chatdecorator.benchmark;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import me.htna.project.chatdecorator.Config;
+import me.htna.project.chatdecorator.TemplateParser;
+import me.htna.project.chatdecorator.UserManager;
+import me.htna.project.chatdecorator.placeholderHandlers.DefaultPlaceholderHandler;
+import me.htna.project.chatdecorator.struct.UserInfo;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.loader.ConfigurationLoader;
+import org.slf4j.helpers.NOPLogger;
+import org.spongepowered.api.Game;
+import org.spongepowered.api.Server;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.data.manipulator.mutable.entity.HealthData;
+import org.spongepowered.api.data.manipulator.mutable.entity.JoinData;
+import org.spongepowered.api.data.value.mutable.MutableBoundedValue;
+import org.spongepowered.api.data.value.mutable.Value;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.network.PlayerConnection;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stubbed Sponge environment for benchmarks
+ * <p>
+ * Sponge API objects are interface proxies which return fixed values,
+ * so the benchmarks measure only ChatDecorator code.
+ */
+public final class SpongeFixture {
+
+    public static final String CHAT_TEMPLATE = "&7[%server_time%] &b%nickname%&7(%username%) &8: &f%message%";
+    public static final String HEADER_TEMPLATE = "&6&lWelcome &e%username%&r\n&7TPS &a%server_tps% &7CPU &a%server_usecpu_percent% &7MEM &a%server_usemem_gb%/%server_totalmem_gb% GB";
+    public static final String FOOTER_TEMPLATE = "&7%server_datetime% &8| &7Players &a%server_player_count% &8| &7Ping &a%server_ping%ms";
+    public static final String ENTRY_TEMPLATE = "&b%nickname% &7%username% &8[&a%playtime_total_minute%m&8]";
+
+    private static boolean initialized;
+    private static int tick;
+    private static final List<Player> onlinePlayers = new ArrayList<>();
+
+    private SpongeFixture() {
+    }
+
+    /**
+     * Create interface proxy which returns the mapped value by method name
+     *
+     * @param type    interface, may be the raw type of the generic interface
+     * @param returns method name -> return value
+     * @param <T>     interface type, ex) {@code Value<String>} of {@code Value.class}
+     * @return proxy
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T stub(Class<? super T> type, Map<String, Object> returns) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + "Stub";
+            }
+
+            Object value = returns.get(method.getName());
+            if (value != null || !method.getReturnType().isPrimitive())
+                return value;
+            if (method.getReturnType() == boolean.class)
+                return false;
+            if (method.getReturnType() == double.class)
+                return 0.0;
+            if (method.getReturnType() == long.class)
+                return 0L;
+            return 0;
+        });
+    }
+
+    private static <E> Value<E> value(E e) {
+        Map<String, Object> returns = new HashMap<>();
+        returns.put("get", e);
+        returns.put("exists", true);
+        return stub(Value.class, returns);
+    }
+
+    private static MutableBoundedValue<Double> boundedValue(double d) {
+        Map<String, Object> returns = new HashMap<>();
+        returns.put("get", d);
+        returns.put("exists", true);
+        return stub(MutableBoundedValue.class, returns);
+    }
+
+    private static void setField(Class<?> type, Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * Install stubbed Sponge game, plugin instance, default configuration and default placeholder handler
+     *
+     * @throws ReflectiveOperationException reflection failed
+     */
+    public static synchronized void init() throws ReflectiveOperationException {
+        if (initialized)
+            return;
+
+        Map<String, Object> serverReturns = new HashMap<String, Object>() {
+            @Override
+            public Object get(Object key) {
+                if ("getRunningTimeTicks".equals(key))
+                    return tick;
+                return super.get(key);
+            }
+        };
+        serverReturns.put("getTicksPerSecond", 19.97);
+        serverReturns.put("getOnlinePlayers", Collections.unmodifiableCollection(onlinePlayers));
+        Server server = stub(Server.class, serverReturns);
+        setField(Sponge.class, null, "game", stub(Game.class, Collections.singletonMap("getServer", server)));
+
+        ChatDecorator plugin = new ChatDecorator();
+        setField(ChatDecorator.class, plugin, "logger", NOPLogger.NOP_LOGGER);
+        Map<String, Object> loaderReturns = new HashMap<String, Object>() {
+            @Override
+            public Object get(Object key) {
+                if ("load".equals(key))
+                    return CommentedConfigurationNode.root();
+                return super.get(key);
+            }
+        };
+        setField(ChatDecorator.class, plugin, "configManager", stub(ConfigurationLoader.class, loaderReturns));
+
+        Config.getInstance();
+        try {
+            TemplateParser.getInstance().addPlaceholder(new DefaultPlaceholderHandler());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+
+        initialized = true;
+    }
+
+    /**
+     * Advance server tick, tick scoped placeholder values are computed again.
+     */
+    public static void nextTick() {
+        tick++;
+    }
+
+    /**
+     * Create online player stub and register it to {@link UserManager}
+     *
+     * @param name player name
+     * @return {@link Player}
+     */
+    public static Player createPlayer(String name) {
+        UUID uuid = UUID.nameUUIDFromBytes(name.getBytes());
+        Instant last = Instant.now().minus(1, ChronoUnit.HOURS);
+        Instant first = last.minus(30, ChronoUnit.DAYS);
+
+        Map<String, Object> joinReturns = new HashMap<>();
+        joinReturns.put("firstPlayed", value(first));
+        joinReturns.put("lastPlayed", value(last));
+
+        Map<String, Object> healthReturns = new HashMap<>();
+        healthReturns.put("health", boundedValue(17.5));
+        healthReturns.put("maxHealth", boundedValue(20.0));
+
+        Map<String, Object> playerReturns = new HashMap<>();
+        playerReturns.put("getUniqueId", uuid);
+        playerReturns.put("getName", name);
+        playerReturns.put("getJoinData", stub(JoinData.class, joinReturns));
+        playerReturns.put("getHealthData", stub(HealthData.class, healthReturns));
+        playerReturns.put("getLocale", Locale.KOREA);
+        playerReturns.put("getLocation", new Location<>(stub(World.class, Collections.emptyMap()), 128.5, 64.0, -311.25));
+        playerReturns.put("getConnection", stub(PlayerConnection.class, Collections.singletonMap("getLatency", 42)));
+        Player player = stub(Player.class, playerReturns);
+
+        UserInfo userInfo = UserManager.getInstance().joinUser(uuid, first, last, 36000);
+        userInfo.setNickname(name + "_nick");
+        onlinePlayers.add(player);
+        return player;
+    }
+
+    /**
+     * Get online player stubs
+     *
+     * @return players
+     */
+    public static Collection<Player> getOnlinePlayers() {
+        return onlinePlayers;
+    }
+}
@@ -0,0 +1,81 @@
+package me.htna.project.chatdecorator.benchmark;
+
+import me.htna.project.chatdecorator.TemplateParser;
+import me.htna.project.chatdecorator.struct.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.entity.living.player.Player;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TemplateParser#parse(String, Message)} over the chat, tab header/footer and entry templates
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateParserBenchmark {
+
+    private TemplateParser parser;
+    private Player player;
+    private Message chatMessage;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        SpongeFixture.init();
+        parser = TemplateParser.getInstance();
+        player = SpongeFixture.createPlayer("Benchmarker");
+        chatMessage = new Message("Benchmarker", "Hello everyone, this is a normal length chat message!");
+    }
+
+    @Benchmark
+    public String chat() {
+        return parser.parse(SpongeFixture.CHAT_TEMPLATE, chatMessage);
+    }
+
+    @Benchmark
+    public String header() {
+        return parser.parse(SpongeFixture.HEADER_TEMPLATE, new Message(player));
+    }
+
+    @Benchmark
+    public String footer() {
+        return parser.parse(SpongeFixture.FOOTER_TEMPLATE, new Message(player));
+    }
+
+    @Benchmark
+    public String entry() {
+        return parser.parse(SpongeFixture.ENTRY_TEMPLATE, new Message(player));
+    }
+
+    /**
+     * One player of the tab decoration refresh, server stats are memoized in this tick
+     */
+    @Benchmark
+    public int tabRefreshPerPlayer() {
+        Message msg = new Message(player);
+        return parser.parse(SpongeFixture.HEADER_TEMPLATE, msg).length()
+                + parser.parse(SpongeFixture.FOOTER_TEMPLATE, msg).length()
+                + parser.parse(SpongeFixture.ENTRY_TEMPLATE, msg).length();
+    }
+
+    /**
+     * Same as {@link #tabRefreshPerPlayer()}, but every render is in a new tick
+     */
+    @Benchmark
+    public int tabRefreshPerPlayerNewTick() {
+        SpongeFixture.nextTick();
+        return tabRefreshPerPlayer();
+    }
+}
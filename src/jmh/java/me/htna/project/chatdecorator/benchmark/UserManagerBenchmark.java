@@ -0,0 +1,87 @@
+package me.htna.project.chatdecorator.benchmark;
+
+import me.htna.project.chatdecorator.UserManager;
+import me.htna.project.chatdecorator.struct.UserInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spongepowered.api.entity.living.player.Player;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserManager} under concurrent join, chat and tab refresh
+ * <p>
+ * One thread reconnects players as the server thread does, four threads look up the chat sender,
+ * and one thread reads every online player as the async tab decoration task does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserManagerBenchmark {
+
+    private static final int PLAYER_COUNT = 200;
+
+    private Player[] players;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        SpongeFixture.init();
+        players = new Player[PLAYER_COUNT];
+        for (int i = 0; i < PLAYER_COUNT; i++)
+            players[i] = SpongeFixture.createPlayer("Contender" + i);
+    }
+
+    /**
+     * Player disconnects and joins again
+     */
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(1)
+    public UserInfo join() {
+        Player player = players[ThreadLocalRandom.current().nextInt(PLAYER_COUNT)];
+        UserManager.getInstance().exitUser(player);
+        return UserManager.getInstance().joinUser(player.getUniqueId(), Instant.EPOCH, Instant.now(), 36000);
+    }
+
+    /**
+     * Chat sender lookup and mute check
+     */
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(4)
+    public boolean chat() {
+        Player player = players[ThreadLocalRandom.current().nextInt(PLAYER_COUNT)];
+        return UserManager.getInstance().findUser(player).map(UserInfo::isMute).orElse(false);
+    }
+
+    /**
+     * Tab entries of every online player
+     */
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(1)
+    public void tab(Blackhole bh) {
+        for (Player player : players) {
+            UserManager.getInstance().findUser(player).ifPresent(x -> {
+                bh.consume(x.getNickname());
+                bh.consume(x.getPlayTime());
+            });
+        }
+    }
+}
@@ -3,15 +3,18 @@ package me.htna.project.chatdecorator;
 import com.google.inject.Inject;
 import lombok.Getter;
 import me.htna.project.chatdecorator.commands.*;
+import me.htna.project.chatdecorator.database.AsyncDatabase;
+import me.htna.project.chatdecorator.database.ChatLogSearchIndex;
+import me.htna.project.chatdecorator.database.ChatLogStore;
+import me.htna.project.chatdecorator.database.ChatLogWriter;
 import me.htna.project.chatdecorator.database.H2Embedded;
+import me.htna.project.chatdecorator.database.SegmentChatLogStore;
+import me.htna.project.chatdecorator.database.UserProfile;
 import me.htna.project.chatdecorator.database.entities.CHATLOG;
-import me.htna.project.chatdecorator.database.entities.MUTEINFO;
-import me.htna.project.chatdecorator.database.entities.NICKNAME;
 import me.htna.project.chatdecorator.database.entities.USERINFO;
 import me.htna.project.chatdecorator.placeholderHandlers.DefaultPlaceholderHandler;
 import me.htna.project.chatdecorator.placeholderHandlers.LPPlaceholderHandler;
 import me.htna.project.chatdecorator.struct.Message;
-import me.htna.project.chatdecorator.struct.MuteInfo;
 import me.htna.project.chatdecorator.struct.UserInfo;
 import net.luckperms.api.LuckPerms;
 import ninja.leaping.configurate.commented.CommentedConfigurationNode;
@@ -19,11 +22,11 @@ import ninja.leaping.configurate.loader.ConfigurationLoader;
 import org.slf4j.Logger;
 import org.spongepowered.api.Game;
 import org.spongepowered.api.Sponge;
-import org.spongepowered.api.asset.Asset;
 import org.spongepowered.api.command.spec.CommandSpec;
 import org.spongepowered.api.config.DefaultConfig;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
 import org.spongepowered.api.event.filter.cause.First;
 import org.spongepowered.api.event.game.state.GameInitializationEvent;
 import org.spongepowered.api.event.game.state.GameStartedServerEvent;
@@ -32,19 +35,16 @@ import org.spongepowered.api.event.message.MessageChannelEvent;
 import org.spongepowered.api.event.network.ClientConnectionEvent;
 import org.spongepowered.api.plugin.Plugin;
 import org.spongepowered.api.plugin.PluginContainer;
+import org.spongepowered.api.scheduler.Task;
 import org.spongepowered.api.service.ProviderRegistration;
 import org.spongepowered.api.text.Text;
-import org.spongepowered.api.text.serializer.TextSerializers;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Plugin(
         id = "chatdecorator",
@@ -75,6 +75,7 @@ public class ChatDecorator {
      * {@link Game}
      */
     @Inject
+    @Getter
     private Game game;
     /**
      * {@link Logger}
@@ -90,6 +91,24 @@ public class ChatDecorator {
     @Getter
     private H2Embedded db;
 
+    @Getter
+    private AsyncDatabase asyncDb;
+
+    /**
+     * Chat log backend, {@link #db} or {@link SegmentChatLogStore}
+     */
+    @Getter
+    private ChatLogStore chatLogStore;
+
+    /**
+     * Chat log search index, null if the search is disabled
+     */
+    @Getter
+    private ChatLogSearchIndex chatLogSearchIndex;
+
+    @Getter
+    private ChatLogWriter chatLogWriter;
+
     public ChatDecorator() {
         ChatDecorator.instance = this;
     }
@@ -108,7 +127,10 @@ public class ChatDecorator {
                 .permission("hatena.chatdecorator")
                 .child(new ReloadCommand().buildSelf(), ReloadCommand.ALIAS)
                 .child(new ChatLogCommand().buildSelf(), ChatLogCommand.ALIAS)
-                .child(new NicknameCommand().buildSelf(), NicknameCommand.ALIAS);
+                .child(new NicknameCommand().buildSelf(), NicknameCommand.ALIAS)
+                .child(new StatusCommand().buildSelf(), StatusCommand.ALIAS)
+                .child(new SearchCommand().buildSelf(), SearchCommand.ALIAS)
+                .child(new ExportCommand().buildSelf(), ExportCommand.ALIAS);
 
         if (Config.getInstance().isEnableMute()) {
             specBuilder.child(new MuteCommand().buildSelf(), MuteCommand.ALIAS)
@@ -129,40 +151,7 @@ public class ChatDecorator {
      * @return {@link Text}
      */
     private Text makeText(String template, Message msg) {
-        TemplateParser parser = TemplateParser.getInstance();
-        String formatted = parser.parse(template, msg);
-        return TextSerializers.FORMATTING_CODE.deserialize(formatted);
-    }
-
-    private void initDbAsset() {
-        String dbFile = "chatdeco.h2.mv.db";
-        Path path = Paths.get(game.getGameDirectory().toString(), "chatdecorator");
-        Path filepath = Paths.get(path.toString(), dbFile);
-        if (Files.notExists(filepath)) {
-            Optional<Asset> asset = plugin.getAsset(dbFile);
-            if (!asset.isPresent()) {
-                logger.error("DB Asset not founded!!!");
-            }
-
-            // check folder
-            if (Files.notExists(path)) {
-                try {
-                    Files.createDirectory(path);
-                } catch (IOException e) {
-                    logger.error("Failed create db folder");
-                    e.printStackTrace();
-                    return;
-                }
-            }
-
-            // copy db file from asset
-            try {
-                asset.get().copyToFile(filepath);
-            } catch (IOException e) {
-                logger.error("Failed copy db asset to disk");
-                e.printStackTrace();
-            }
-        }
+        return TemplateParser.getInstance().parseText(template, msg);
     }
 
     /**
@@ -174,11 +163,20 @@ public class ChatDecorator {
     public void onInitialization(GameInitializationEvent event) {
         logger.debug("ChatDecorator#onInitialization");
 
-        Config.getInstance();
-        initDbAsset();
+        Config config = Config.getInstance();
+
+        // 데이터베이스, 채팅 로그 설정은 재시작해야 반영됨
+        db = new H2Embedded(config.getChatLogPartitionDays());
+        // 커넥션 하나는 쓰기 스레드 몫, 나머지는 읽기 스레드 몫. 채팅 로그 기록은 풀 밖의 전용 커넥션 사용
+        int poolSize = Math.max(2, config.getDbPoolSize());
+        db.connect(Paths.get(game.getGameDirectory().toString(), "chatdecorator", "chatdeco.h2"), poolSize, config.getDbStatementCacheSize());
+        chatLogStore = createChatLogStore(config);
+        asyncDb = new AsyncDatabase(db, chatLogStore, poolSize - 1, config.getDbQueueCapacity());
 
-        db = new H2Embedded();
-        db.connect(Paths.get(game.getGameDirectory().toString(), "chatdecorator", "chatdeco.h2"));
+        if (config.getChatLogSearchDays() > 0)
+            chatLogSearchIndex = new ChatLogSearchIndex(chatLogStore, config.getChatLogSearchDays());
+        chatLogWriter = new ChatLogWriter(chatLogStore, chatLogSearchIndex, config.getChatLogQueueCapacity(), config.getChatLogBatchSize(), config.getChatLogFlushInterval());
+        chatLogWriter.start();
 
         try {
             TemplateParser.getInstance().addPlaceholder(new DefaultPlaceholderHandler());
@@ -189,6 +187,30 @@ public class ChatDecorator {
         registerCommands();
     }
 
+    /**
+     * Create chat log backend of the config
+     * <p>
+     * If the segment store fails to open, chat logs are stored in H2.
+     *
+     * @param config {@link Config}
+     * @return {@link ChatLogStore}
+     */
+    private ChatLogStore createChatLogStore(Config config) {
+        if (!Config.CHATLOG_STORE_SEGMENT.equalsIgnoreCase(config.getChatLogStore()))
+            return db;
+
+        SegmentChatLogStore store = new SegmentChatLogStore(
+                Paths.get(game.getGameDirectory().toString(), "chatdecorator", "chatlog"), config.getChatLogSegmentSize());
+        try {
+            store.open();
+            return store;
+        } catch (SQLException e) {
+            logger.error("Chat log segment store open failed, use H2: " + e);
+            e.printStackTrace();
+            return db;
+        }
+    }
+
     /**
      * GameStartedServerEvent handler
      *
@@ -212,19 +234,56 @@ public class ChatDecorator {
         } catch (java.lang.NoClassDefFoundError ex) {
         }
 
+        if (chatLogSearchIndex != null) {
+            Task.builder().execute(chatLogSearchIndex::rebuild)
+                    .async().name("Chat log search index build task").submit(plugin);
+        }
+
+        HardwareMonitor.getInstance().runTask();
         TabDecorationManager.getInstance().runTask();
+        ChatLogRetentionManager.getInstance().runTask();
+        PlaytimeCheckpointer.getInstance().runTask();
+        MuteExpiryScheduler.getInstance().runTask();
         logger.info("ChatDecorator is run");
     }
 
     @Listener
     public void onServerStopped(GameStoppedServerEvent event) {
         TabDecorationManager.getInstance().stopTask();
+        HardwareMonitor.getInstance().stopTask();
+        ChatLogRetentionManager.getInstance().stopTask();
+        PlaytimeCheckpointer.getInstance().stopTask();
+        MuteExpiryScheduler.getInstance().stopTask();
+        if (chatLogWriter != null)
+            chatLogWriter.stop();
+        if (asyncDb != null)
+            asyncDb.shutdown();
+        if (chatLogStore != null)
+            chatLogStore.close();
         if (db != null)
             db.disconnect();
     }
 
+    /**
+     * ClientConnectionEvent.Auth event handler
+     * <p>
+     * Auth event is fired off the server thread, so the user profile is loaded while the player logs in.
+     *
+     * @param event {@link ClientConnectionEvent.Auth}
+     */
+    @Listener(order = Order.POST)
+    public void onAuth(ClientConnectionEvent.Auth event) {
+        if (event.isCancelled())
+            return;
+
+        UserProfileCache.getInstance().preload(event.getProfile().getUniqueId().toString());
+    }
+
     /**
      * ClientConnectionEvent.Join event handler
+     * <p>
+     * The user profile preloaded on auth is applied here.
+     * If it is still loading, it is applied on the server thread when loaded.
      *
      * @param event {@link ClientConnectionEvent.Join}
      */
@@ -237,50 +296,69 @@ public class ChatDecorator {
         Instant first = player.firstPlayed().get();
         Instant last = player.lastPlayed().get();
 
+        if (UserManager.getInstance().cacheName(player))
+            logger.info("Player name changed: " + uuid + " -> " + player.getName());
+
+        CompletableFuture<UserProfile> profile = UserProfileCache.getInstance().take(uuid);
+        if (profile.isDone() && !profile.isCompletedExceptionally()) {
+            applyJoin(player, first, last, profile.join());
+            return;
+        }
+
+        profile.thenAcceptAsync(x -> applyJoin(player, first, last, x), asyncDb.getSyncExecutor())
+                .exceptionally(ex -> {
+                    logger.error("User profile load failed, uuid: " + uuid + ", " + ex);
+                    return null;
+                });
+    }
+
+    /**
+     * Apply loaded user profile to the joined player
+     *
+     * @param player  {@link Player}
+     * @param first   first join datetime
+     * @param last    last join datetime
+     * @param profile {@link UserProfile}
+     */
+    private void applyJoin(Player player, Instant first, Instant last, UserProfile profile) {
+        Optional<USERINFO> table = profile.getUserInfo();
+        String uuid = player.getUniqueId().toString();
+        if (table.isPresent())
+            asyncDb.updateUserInfo(uuid, last);
+        else
+            asyncDb.insertUserInfo(uuid, first, last);
+
+        // 불러오는 동안 접속을 종료한 경우
+        if (!player.isOnline())
+            return;
+
         // Get configuration instance
         Config config = Config.getInstance();
-        try {
-            Optional<USERINFO> table = db.selectUserInfo(uuid);
-            if (table.isPresent()) {
-                db.updateUserInfo(uuid, last);
-                UserInfo userinfo = UserManager.getInstance().joinUser(uuid, first, last, table.get().getPlaytime());
-
-                // 닉네임 정보 처리
-                Optional<NICKNAME> nickname = db.selectNickname(uuid);
-                nickname.ifPresent(x -> userinfo.setNickname(x.getNickname()));
-
-                // 뮤트 정보 처리
-                List<MUTEINFO> muteInfos = db.selectMuteInfo(uuid);
-                List<MuteInfo> muteInfos_ = new ArrayList<>();
-                for (MUTEINFO muteInfo : muteInfos)
-                    muteInfos_.add(new MuteInfo(muteInfo));
-
-                userinfo.setMuteInfoList(muteInfos_);
-
-                // 뮤트 상태라면 유저에게 통지
-                if (userinfo.isMute()) {
-                    Message msg = new Message(player);
-                    Text text = makeText(config.getChatIgnoreTemplate(), msg);
-                    player.sendMessage(text);
-                }
+        if (table.isPresent()) {
+            UserInfo userinfo = UserManager.getInstance().joinUser(player.getUniqueId(), first, last, table.get().getPlaytime());
 
-                if (config.isShowJoinMessage())    // send join message
-                    player.sendMessage(makeText(config.getJoinTemplate(), new Message(player)));
-            } else {
-                logger.info("Join new player: " + uuid);
-                db.insertUserInfo(player.getUniqueId().toString(), first, last);
-                UserManager.getInstance().joinUser(uuid, first, last, 0);
+            // 닉네임, 뮤트 정보 처리
+            userinfo.applyProfile(profile);
 
-                if (config.isShowWelcomeMessage()) // send welcome message
-                    player.sendMessage(makeText(config.getWelcomeTemplate(), new Message(player)));
+            // 뮤트 상태라면 유저에게 통지
+            if (userinfo.isMute()) {
+                Message msg = new Message(player);
+                Text text = makeText(config.getChatIgnoreTemplate(), msg);
+                player.sendMessage(text);
             }
 
-            // Tab decoration 등록
-            TabDecorationManager.getInstance().addUser(player);
+            if (config.isShowJoinMessage())    // send join message
+                player.sendMessage(makeText(config.getJoinTemplate(), new Message(player)));
+        } else {
+            logger.info("Join new player: " + uuid);
+            UserManager.getInstance().joinUser(player.getUniqueId(), first, last, 0);
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+            if (config.isShowWelcomeMessage()) // send welcome message
+                player.sendMessage(makeText(config.getWelcomeTemplate(), new Message(player)));
         }
+
+        // Tab decoration 등록
+        TabDecorationManager.getInstance().addUser(player);
     }
 
     /**
@@ -293,15 +371,8 @@ public class ChatDecorator {
         logger.debug("ChatDecorator#onDisconnect");
         Player player = event.getTargetEntity();
         Optional<UserInfo> userinfo = UserManager.getInstance().exitUser(player);
-        userinfo.ifPresent(x -> {
-            logger.info("Player disconnect, playtime: " + x.getPlayTime());
-            try {
-                db.updateUserPlaytime(x.getUuid(), x.getPlayTime());
-            } catch (SQLException e) {
-                logger.error("User playtime update failed: " + e);
-                e.printStackTrace();
-            }
-        });
+        // 플레이 시간은 PlaytimeCheckpointer가 모아서 기록
+        userinfo.ifPresent(x -> logger.info("Player disconnect, playtime: " + x.getPlayTime()));
         
         TabDecorationManager.getInstance().removeUser(player);
     }
@@ -356,12 +427,14 @@ public class ChatDecorator {
         }
     }
 
+    /**
+     * Queue chat log to {@link ChatLogWriter}
+     *
+     * @param event  {@link MessageChannelEvent.Chat}
+     * @param player {@link Player}
+     * @param reason {@link CHATLOG.Reason}
+     */
     private void insertChatLog(MessageChannelEvent.Chat event, @First Player player, CHATLOG.Reason reason) {
-        try {
-            db.insertChatLog(player.getUniqueId().toString(), event.getRawMessage().toPlain(), Instant.now(), reason);
-        } catch (SQLException e) {
-            logger.error("Chat log write error: " + e);
-            e.printStackTrace();
-        }
+        chatLogWriter.write(player.getUniqueId().toString(), event.getRawMessage().toPlain(), Instant.now(), reason);
     }
 }
@@ -0,0 +1,115 @@
+package me.htna.project.chatdecorator;
+
+import me.htna.project.chatdecorator.database.ChatLogSearchIndex;
+import org.spongepowered.api.scheduler.Task;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat log retention manager
+ * <p>
+ * Background task drops the chat log partitions or segments older than the retention period.
+ * A partition is dropped as a whole table, so the purge never deletes rows one by one.
+ * The search index drops the days out of the search period on the same task.
+ */
+public class ChatLogRetentionManager {
+
+    /**
+     * Delay of the first purge after the server start (unit: minute)
+     */
+    private static final int PURGE_DELAY = 1;
+
+    /**
+     * Purge interval (unit: minute)
+     */
+    private static final int PURGE_INTERVAL = 60;
+
+    private static ChatLogRetentionManager instance;
+    public static ChatLogRetentionManager getInstance() {
+        if (instance == null)
+            instance = new ChatLogRetentionManager();
+        return instance;
+    }
+
+    private Task task;
+
+    private volatile Instant lastPurge;
+
+    private volatile int lastDropCount;
+
+    private ChatLogRetentionManager() {
+    }
+
+    /**
+     * Drop the expired chat log partitions, and the logs out of the search period from the search index
+     */
+    private void purge() {
+        Instant cutoff = Instant.EPOCH;
+        int retentionDays = Config.getInstance().getChatLogRetentionDays();
+        if (retentionDays > 0) {
+            cutoff = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+            try {
+                List<String> dropped = ChatDecorator.getInstance().getChatLogStore().purgeChatLog(cutoff);
+                lastPurge = Instant.now();
+                lastDropCount = dropped.size();
+            } catch (SQLException e) {
+                ChatDecorator.getInstance().getLogger().error("Chat log purge error: " + e);
+                e.printStackTrace();
+            }
+        }
+
+        ChatLogSearchIndex searchIndex = ChatDecorator.getInstance().getChatLogSearchIndex();
+        if (searchIndex != null)
+            searchIndex.evict(cutoff);
+    }
+
+    /**
+     * Run purge task
+     */
+    public void runTask() {
+        if (task != null) {
+            ChatDecorator.getInstance().getLogger().warn("Chat log retention task already run");
+            return;
+        }
+
+        task = Task.builder().execute(this::purge)
+                .async().delay(PURGE_DELAY, TimeUnit.MINUTES).interval(PURGE_INTERVAL, TimeUnit.MINUTES)
+                .name("Chat log retention task").submit(ChatDecorator.getInstance().getPlugin());
+
+        ChatDecorator.getInstance().getLogger().info("Run Chat log retention task");
+    }
+
+    /**
+     * Stop purge task
+     */
+    public void stopTask() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+
+            ChatDecorator.getInstance().getLogger().info("Stop Chat log retention task");
+        }
+    }
+
+    /**
+     * Get datetime of the last purge
+     *
+     * @return last purge datetime, null if not purged yet
+     */
+    public Instant getLastPurge() {
+        return lastPurge;
+    }
+
+    /**
+     * Get dropped partition count of the last purge
+     *
+     * @return dropped partition count
+     */
+    public int getLastDropCount() {
+        return lastDropCount;
+    }
+}
@@ -0,0 +1,353 @@
+package me.htna.project.chatdecorator;
+
+import me.htna.project.chatdecorator.placeholderHandlers.PlaceholderScope;
+import me.htna.project.chatdecorator.struct.Message;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.serializer.TextSerializers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled template
+ * <p>
+ * The template string is split into literal and placeholder segments only once.
+ * Rendering walks the segment list and appends into one pre-sized builder,
+ * so no regex matching or format string parsing happens per message.
+ * <p>
+ * {@link #renderText(Message)} reuses the {@link Text} of literal segments built once,
+ * and deserializes only the placeholder values with the formatting codes active at their position.
+ */
+public class CompiledTemplate {
+
+    /**
+     * Expected length of a placeholder corresponding value
+     */
+    private static final int PLACEHOLDER_LENGTH_HINT = 16;
+
+    /**
+     * Formatting code character of {@link TextSerializers#FORMATTING_CODE}
+     */
+    private static final char FORMATTING_CODE = '&';
+
+    /**
+     * Template segment
+     */
+    abstract static class Segment {
+
+        /**
+         * Formatting codes active at the start of this segment
+         */
+        final String style;
+
+        Segment(String style) {
+            this.style = style;
+        }
+
+        /**
+         * Get rendered string of segment
+         *
+         * @param message {@link Message}
+         * @return rendered string
+         */
+        abstract String resolve(Message message);
+
+        /**
+         * Get {@link Text} of segment
+         *
+         * @param value string returned by {@link #resolve(Message)}
+         * @return {@link Text}
+         */
+        abstract Text toText(String value);
+
+        /**
+         * Check the rendered string can be deserialized apart from the other segments
+         *
+         * @param value string returned by {@link #resolve(Message)}
+         * @return if false, the whole line must be deserialized at once
+         */
+        abstract boolean isIsolated(String value);
+    }
+
+    /**
+     * Literal text segment
+     */
+    static class LiteralSegment extends Segment {
+        private final String text;
+
+        /**
+         * Deserialized text, built on first use
+         */
+        private volatile Text cachedText;
+
+        LiteralSegment(String text, String style) {
+            super(style);
+            this.text = text;
+        }
+
+        @Override
+        String resolve(Message message) {
+            return text;
+        }
+
+        @Override
+        Text toText(String value) {
+            Text cached = cachedText;
+            if (cached == null) {
+                cached = TextSerializers.FORMATTING_CODE.deserialize(style + text);
+                cachedText = cached;
+            }
+            return cached;
+        }
+
+        @Override
+        boolean isIsolated(String value) {
+            // Trailing '&' makes a formatting code with the next segment
+            return text.charAt(text.length() - 1) != FORMATTING_CODE;
+        }
+    }
+
+    /**
+     * Placeholder segment
+     */
+    static class PlaceholderSegment extends Segment {
+        private final String placeholder;
+        private final TemplateParser parser;
+
+        /**
+         * Handler bound at compile time, null if no handler takes this placeholder
+         */
+        private final TemplateParser.Binding binding;
+
+        /**
+         * Whether constant scoped value is memoized
+         */
+        private volatile boolean constantResolved;
+
+        /**
+         * Memoized constant scoped value
+         */
+        private volatile String constantValue;
+
+        PlaceholderSegment(String placeholder, String style, TemplateParser parser) {
+            super(style);
+            this.placeholder = placeholder;
+            this.parser = parser;
+            this.binding = parser.bind(placeholder);
+        }
+
+        /**
+         * Get corresponding value memoized at the scope of the binding
+         *
+         * @param message {@link Message}
+         * @return corresponding value
+         */
+        private String replace(Message message) {
+            if (binding == null)
+                return null;
+
+            if (binding.scope != PlaceholderScope.CONSTANT)
+                return binding.resolve(placeholder, message);
+
+            if (!constantResolved) {
+                constantValue = binding.replace(placeholder, message);
+                constantResolved = true;
+            }
+            return constantValue;
+        }
+
+        @Override
+        String resolve(Message message) {
+            String correspondingValue = replace(message);
+            if (correspondingValue == null)
+                correspondingValue = parser.getDefaultValue(placeholder);
+
+            return correspondingValue;
+        }
+
+        @Override
+        Text toText(String value) {
+            if (style.isEmpty())
+                return Text.of(value);
+
+            return TextSerializers.FORMATTING_CODE.deserialize(style + value);
+        }
+
+        @Override
+        boolean isIsolated(String value) {
+            // Formatting codes in the value change the style of the following segments
+            return value.indexOf(FORMATTING_CODE) < 0;
+        }
+    }
+
+    /**
+     * Original template string
+     */
+    private final String template;
+
+    /**
+     * Immutable segment list
+     */
+    private final List<Segment> segments;
+
+    /**
+     * Initial capacity of render buffer
+     */
+    private final int capacity;
+
+    private CompiledTemplate(String template, List<Segment> segments, int capacity) {
+        this.template = template;
+        this.segments = Collections.unmodifiableList(segments);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Check the character is a formatting code
+     *
+     * @param c character after '&amp;'
+     * @return if true, formatting code
+     */
+    private static boolean isFormattingCode(char c) {
+        char lower = Character.toLowerCase(c);
+        return (lower >= '0' && lower <= '9') || (lower >= 'a' && lower <= 'f') || (lower >= 'k' && lower <= 'o') || lower == 'r';
+    }
+
+    /**
+     * Apply the formatting codes in literal text to the active style
+     * <p>
+     * Codes are kept in order so that deserializing them gives the same style as the whole line.
+     * Reset code ('&amp;r') clears the previous codes.
+     *
+     * @param style active formatting codes
+     * @param text  literal text
+     * @return formatting codes active after the text
+     */
+    private static String applyFormattingCodes(String style, String text) {
+        StringBuilder sb = null;
+        int pos = text.indexOf(FORMATTING_CODE);
+        while (pos >= 0 && pos + 1 < text.length()) {
+            char code = text.charAt(pos + 1);
+            if (isFormattingCode(code)) {
+                if (sb == null)
+                    sb = new StringBuilder(style);
+
+                if (Character.toLowerCase(code) == 'r')
+                    sb.setLength(0);
+                else
+                    sb.append(FORMATTING_CODE).append(code);
+
+                pos = text.indexOf(FORMATTING_CODE, pos + 2);
+            } else {
+                pos = text.indexOf(FORMATTING_CODE, pos + 1);
+            }
+        }
+
+        return sb == null ? style : sb.toString();
+    }
+
+    /**
+     * Compile template string
+     * <p>
+     * Placeholder is the shortest text enclosed with '%'.
+     * A '%' without closing pair is treated as literal text, so "%s" or "%d" are printed as is.
+     *
+     * @param template template string
+     * @param parser   {@link TemplateParser} which binds placeholders to the handlers
+     * @return {@link CompiledTemplate}
+     */
+    public static CompiledTemplate compile(String template, TemplateParser parser) {
+        List<Segment> segments = new ArrayList<>();
+        int literalLength = 0;
+        int placeholderCount = 0;
+        String style = "";
+
+        int pos = 0;
+        int length = template.length();
+        while (pos < length) {
+            int start = template.indexOf('%', pos);
+            int end = start < 0 ? -1 : template.indexOf('%', start + 1);
+            if (end < 0) {
+                segments.add(new LiteralSegment(template.substring(pos), style));
+                literalLength += length - pos;
+                break;
+            }
+
+            if (start > pos) {
+                String literal = template.substring(pos, start);
+                segments.add(new LiteralSegment(literal, style));
+                style = applyFormattingCodes(style, literal);
+                literalLength += start - pos;
+            }
+
+            segments.add(new PlaceholderSegment(template.substring(start, end + 1), style, parser));
+            placeholderCount++;
+            pos = end + 1;
+        }
+
+        return new CompiledTemplate(template, segments, literalLength + placeholderCount * PLACEHOLDER_LENGTH_HINT);
+    }
+
+    /**
+     * Get original template string
+     *
+     * @return template string
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Render template
+     *
+     * @param message {@link Message}
+     * @return formatted string
+     */
+    public String render(Message message) {
+        StringBuilder sb = new StringBuilder(capacity);
+        for (Segment segment : segments)
+            sb.append(segment.resolve(message));
+
+        return sb.toString();
+    }
+
+    /**
+     * Render template to {@link Text}
+     * <p>
+     * If a placeholder value contains formatting codes, the whole line is deserialized
+     * because the codes change the style of the following segments.
+     *
+     * @param message {@link Message}
+     * @return {@link Text}
+     */
+    public Text renderText(Message message) {
+        int size = segments.size();
+        if (size == 0)
+            return Text.EMPTY;
+
+        String[] values = new String[size];
+        boolean isolated = true;
+        for (int i = 0; i < size; i++) {
+            Segment segment = segments.get(i);
+            values[i] = segment.resolve(message);
+            isolated &= segment.isIsolated(values[i]);
+        }
+
+        if (!isolated) {
+            StringBuilder sb = new StringBuilder(capacity);
+            for (String value : values)
+                sb.append(value);
+
+            return TextSerializers.FORMATTING_CODE.deserialize(sb.toString());
+        }
+
+        if (size == 1)
+            return segments.get(0).toText(values[0]);
+
+        Text.Builder builder = Text.builder();
+        for (int i = 0; i < size; i++)
+            builder.append(segments.get(i).toText(values[i]));
+
+        return builder.build();
+    }
+}
@@ -53,9 +53,24 @@ public class Config {
         public static final String FOOTER = "footer";
         public static final String REFRESHRATE = "refreshRate";
         public static final String ENTRYTEMPLATE = "entryTemplate";
+
+        public static final String CHATLOG = "chatLog";
+        public static final String BATCHSIZE = "batchSize";
+        public static final String FLUSHINTERVAL = "flushInterval";
+        public static final String QUEUECAPACITY = "queueCapacity";
+        public static final String PARTITIONDAYS = "partitionDays";
+        public static final String RETENTIONDAYS = "retentionDays";
+        public static final String STORE = "store";
+        public static final String SEGMENTSIZE = "segmentSize";
+        public static final String SEARCHDAYS = "searchDays";
+
+        public static final String DATABASE = "database";
+        public static final String POOLSIZE = "poolSize";
+        public static final String STATEMENTCACHESIZE = "statementCacheSize";
+        public static final String PLAYTIMECHECKPOINTINTERVAL = "playtimeCheckpointInterval";
     }
 
-    private static Config instance;
+    private static volatile Config instance;
     public static Config getInstance() {
         if (instance == null)
             instance = new Config();
@@ -82,6 +97,12 @@ public class Config {
     @Getter
     private String timeFormatter;
 
+    /**
+     * Formatters of dateTimeFormatter, dateFormatter and timeFormatter
+     */
+    @Getter
+    private DateTimeFormatterRegistry formatterRegistry;
+
     @Getter
     private boolean useChatDecorator;
 
@@ -127,6 +148,95 @@ public class Config {
     @Getter
     private int refreshRate;
 
+    /**
+     * Maximum rows of a chat log batch
+     */
+    @Getter
+    private int chatLogBatchSize;
+
+    /**
+     * Maximum delay of a chat log before commit (unit: millisecond)
+     */
+    @Getter
+    private int chatLogFlushInterval;
+
+    /**
+     * Chat log queue capacity
+     */
+    @Getter
+    private int chatLogQueueCapacity;
+
+    /**
+     * Period of a chat log partition table (unit: day)
+     */
+    @Getter
+    private int chatLogPartitionDays;
+
+    /**
+     * Chat log retention period, 0 keeps forever (unit: day)
+     */
+    @Getter
+    private int chatLogRetentionDays;
+
+    /**
+     * Chat log backend, {@link #CHATLOG_STORE_H2} or {@link #CHATLOG_STORE_SEGMENT}
+     */
+    @Getter
+    private String chatLogStore;
+
+    /**
+     * Chat log segment file size of the segment store (unit: megabyte)
+     */
+    @Getter
+    private int chatLogSegmentSize;
+
+    /**
+     * Period of the chat logs indexed for the search, 0 disables the search (unit: day)
+     */
+    @Getter
+    private int chatLogSearchDays;
+
+    /**
+     * Database connection pool size, at least 2
+     * <p>
+     * One connection is for the database writer thread, the others for the reader threads.
+     * Chat log writes use another connection outside the pool.
+     */
+    @Getter
+    private int dbPoolSize;
+
+    /**
+     * Maximum cached prepared statements per connection
+     */
+    @Getter
+    private int dbStatementCacheSize;
+
+    /**
+     * Maximum queued asynchronous database operations
+     */
+    @Getter
+    private int dbQueueCapacity;
+
+    /**
+     * Interval of writing the playtime of the users (unit: second)
+     */
+    @Getter
+    private int playtimeCheckpointInterval;
+
+    public static final int DEFAULT_CHATLOG_BATCHSIZE = 128;
+    public static final int DEFAULT_CHATLOG_FLUSHINTERVAL = 1000;
+    public static final int DEFAULT_CHATLOG_QUEUECAPACITY = 8192;
+    public static final int DEFAULT_CHATLOG_PARTITIONDAYS = 1;
+    public static final int DEFAULT_CHATLOG_RETENTIONDAYS = 90;
+    public static final String CHATLOG_STORE_H2 = "h2";
+    public static final String CHATLOG_STORE_SEGMENT = "segment";
+    public static final int DEFAULT_CHATLOG_SEGMENTSIZE = 64;
+    public static final int DEFAULT_CHATLOG_SEARCHDAYS = 30;
+    public static final int DEFAULT_DB_POOLSIZE = 4;
+    public static final int DEFAULT_DB_STATEMENTCACHESIZE = 32;
+    public static final int DEFAULT_DB_QUEUECAPACITY = 1024;
+    public static final int DEFAULT_PLAYTIME_CHECKPOINTINTERVAL = 300;
+
     private Config() {
         isLoadCompleted = false;
         load();
@@ -136,9 +246,10 @@ public class Config {
         ChatDecorator plugin = ChatDecorator.getInstance();
         plugin.getLogger().info("Load default configuration");
         defaultPlaceholderCorrespondingValue = "";
-        dateTimeFormatter = "yyyy-MM-dd HH:mm:ss";
-        dateFormatter = "yyyy-MM-dd";
-        timeFormatter = "HH:mm:ss";
+        dateTimeFormatter = DateTimeFormatterRegistry.DEFAULT_DATETIME_FORMAT;
+        dateFormatter = DateTimeFormatterRegistry.DEFAULT_DATE_FORMAT;
+        timeFormatter = DateTimeFormatterRegistry.DEFAULT_TIME_FORMAT;
+        formatterRegistry = new DateTimeFormatterRegistry(dateTimeFormatter, dateFormatter, timeFormatter);
 
         useChatDecorator = true;
         chatTemplate = "<%username%> : %message%";
@@ -161,6 +272,20 @@ public class Config {
         entryTemplate = "%username%";
         refreshRate = 1000;
 
+        chatLogBatchSize = DEFAULT_CHATLOG_BATCHSIZE;
+        chatLogFlushInterval = DEFAULT_CHATLOG_FLUSHINTERVAL;
+        chatLogQueueCapacity = DEFAULT_CHATLOG_QUEUECAPACITY;
+        chatLogPartitionDays = DEFAULT_CHATLOG_PARTITIONDAYS;
+        chatLogRetentionDays = DEFAULT_CHATLOG_RETENTIONDAYS;
+        chatLogStore = CHATLOG_STORE_H2;
+        chatLogSegmentSize = DEFAULT_CHATLOG_SEGMENTSIZE;
+        chatLogSearchDays = DEFAULT_CHATLOG_SEARCHDAYS;
+
+        dbPoolSize = DEFAULT_DB_POOLSIZE;
+        dbStatementCacheSize = DEFAULT_DB_STATEMENTCACHESIZE;
+        dbQueueCapacity = DEFAULT_DB_QUEUECAPACITY;
+        playtimeCheckpointInterval = DEFAULT_PLAYTIME_CHECKPOINTINTERVAL;
+
         if (save)
             save();
     }
@@ -184,6 +309,7 @@ public class Config {
             dateTimeFormatter = globalNode.getNode(KEYSTORE.DATETIMEFORMATTER).getString();
             dateFormatter = globalNode.getNode(KEYSTORE.DATEFORMATTER).getString();
             timeFormatter = globalNode.getNode(KEYSTORE.TIMEFORMATTER).getString();
+            formatterRegistry = new DateTimeFormatterRegistry(dateTimeFormatter, dateFormatter, timeFormatter);
 
             ConfigurationNode decorateNode = configRoot.getNode(KEYSTORE.CHATDECORATE);
             useChatDecorator = decorateNode.getNode(KEYSTORE.USECHATDECORATOR).getBoolean();
@@ -210,6 +336,23 @@ public class Config {
             entryTemplate = tabDecoNode.getNode(KEYSTORE.ENTRYTEMPLATE).getString();
             refreshRate = tabDecoNode.getNode(KEYSTORE.REFRESHRATE).getInt();
 
+            // 이전 버전 설정 파일에는 없는 항목이므로 기본값 사용
+            ConfigurationNode chatLogNode = configRoot.getNode(KEYSTORE.CHATLOG);
+            chatLogBatchSize = chatLogNode.getNode(KEYSTORE.BATCHSIZE).getInt(DEFAULT_CHATLOG_BATCHSIZE);
+            chatLogFlushInterval = chatLogNode.getNode(KEYSTORE.FLUSHINTERVAL).getInt(DEFAULT_CHATLOG_FLUSHINTERVAL);
+            chatLogQueueCapacity = chatLogNode.getNode(KEYSTORE.QUEUECAPACITY).getInt(DEFAULT_CHATLOG_QUEUECAPACITY);
+            chatLogPartitionDays = chatLogNode.getNode(KEYSTORE.PARTITIONDAYS).getInt(DEFAULT_CHATLOG_PARTITIONDAYS);
+            chatLogRetentionDays = chatLogNode.getNode(KEYSTORE.RETENTIONDAYS).getInt(DEFAULT_CHATLOG_RETENTIONDAYS);
+            chatLogStore = chatLogNode.getNode(KEYSTORE.STORE).getString(CHATLOG_STORE_H2);
+            chatLogSegmentSize = chatLogNode.getNode(KEYSTORE.SEGMENTSIZE).getInt(DEFAULT_CHATLOG_SEGMENTSIZE);
+            chatLogSearchDays = chatLogNode.getNode(KEYSTORE.SEARCHDAYS).getInt(DEFAULT_CHATLOG_SEARCHDAYS);
+
+            ConfigurationNode databaseNode = configRoot.getNode(KEYSTORE.DATABASE);
+            dbPoolSize = databaseNode.getNode(KEYSTORE.POOLSIZE).getInt(DEFAULT_DB_POOLSIZE);
+            dbStatementCacheSize = databaseNode.getNode(KEYSTORE.STATEMENTCACHESIZE).getInt(DEFAULT_DB_STATEMENTCACHESIZE);
+            dbQueueCapacity = databaseNode.getNode(KEYSTORE.QUEUECAPACITY).getInt(DEFAULT_DB_QUEUECAPACITY);
+            playtimeCheckpointInterval = databaseNode.getNode(KEYSTORE.PLAYTIMECHECKPOINTINTERVAL).getInt(DEFAULT_PLAYTIME_CHECKPOINTINTERVAL);
+
             isLoadCompleted = true;
         } catch (IOException | ObjectMappingException ex) {
             plugin.getLogger().error("An error occurred while loading this configuration: " + ex);
@@ -259,6 +402,22 @@ public class Config {
             tabDecoNode.getNode(KEYSTORE.ENTRYTEMPLATE).setValue(entryTemplate);
             tabDecoNode.getNode(KEYSTORE.REFRESHRATE).setValue(refreshRate);
 
+            ConfigurationNode chatLogNode = configRoot.getNode(KEYSTORE.CHATLOG);
+            chatLogNode.getNode(KEYSTORE.BATCHSIZE).setValue(chatLogBatchSize);
+            chatLogNode.getNode(KEYSTORE.FLUSHINTERVAL).setValue(chatLogFlushInterval);
+            chatLogNode.getNode(KEYSTORE.QUEUECAPACITY).setValue(chatLogQueueCapacity);
+            chatLogNode.getNode(KEYSTORE.PARTITIONDAYS).setValue(chatLogPartitionDays);
+            chatLogNode.getNode(KEYSTORE.RETENTIONDAYS).setValue(chatLogRetentionDays);
+            chatLogNode.getNode(KEYSTORE.STORE).setValue(chatLogStore);
+            chatLogNode.getNode(KEYSTORE.SEGMENTSIZE).setValue(chatLogSegmentSize);
+            chatLogNode.getNode(KEYSTORE.SEARCHDAYS).setValue(chatLogSearchDays);
+
+            ConfigurationNode databaseNode = configRoot.getNode(KEYSTORE.DATABASE);
+            databaseNode.getNode(KEYSTORE.POOLSIZE).setValue(dbPoolSize);
+            databaseNode.getNode(KEYSTORE.STATEMENTCACHESIZE).setValue(dbStatementCacheSize);
+            databaseNode.getNode(KEYSTORE.QUEUECAPACITY).setValue(dbQueueCapacity);
+            databaseNode.getNode(KEYSTORE.PLAYTIMECHECKPOINTINTERVAL).setValue(playtimeCheckpointInterval);
+
             plugin.getConfigManager().save(configRoot);
         } catch (IOException ex) {
             plugin.getLogger().error("An error occurred while saving this configuration: " + ex);
@@ -0,0 +1,245 @@
+package me.htna.project.chatdecorator;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precompiled {@link DateTimeFormatter} registry
+ * <p>
+ * Built when the configuration is loaded, and replaced together with the {@link Config} instance on reload.
+ * Formatted string of the current datetime is cached for a second,
+ * so every render in that second shares one string.
+ * A format with the fields under a second, ex) SSS, is formatted on every call.
+ */
+public class DateTimeFormatterRegistry {
+
+    public static final String DEFAULT_DATETIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
+    public static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd";
+    public static final String DEFAULT_TIME_FORMAT = "HH:mm:ss";
+
+    /**
+     * Formatted string of a second
+     */
+    private static class SecondValue {
+        final long epochSecond;
+        final String value;
+
+        SecondValue(long epochSecond, String value) {
+            this.epochSecond = epochSecond;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Formatter kind, decides the fallback format
+     */
+    public enum Kind {
+        DATETIME("DateTime", DEFAULT_DATETIME_FORMAT),
+        DATE("date", DEFAULT_DATE_FORMAT),
+        TIME("time", DEFAULT_TIME_FORMAT);
+
+        private final String name;
+        private final String defaultFormat;
+
+        Kind(String name, String defaultFormat) {
+            this.name = name;
+            this.defaultFormat = defaultFormat;
+        }
+    }
+
+    private final ZoneId zone;
+
+    private final String dateTimeFormat;
+    private final String dateFormat;
+    private final String timeFormat;
+
+    private final DateTimeFormatter dateTimeFormatter;
+    private final DateTimeFormatter dateFormatter;
+    private final DateTimeFormatter timeFormatter;
+
+    /**
+     * If true, the format has the fields under a second and the current datetime is not cached
+     */
+    private final boolean dateTimeSubSecond;
+    private final boolean dateSubSecond;
+    private final boolean timeSubSecond;
+
+    /**
+     * Formatters of the other format strings
+     */
+    private final Map<String, DateTimeFormatter> formatterCache;
+
+    private volatile SecondValue nowDateTime;
+    private volatile SecondValue nowDate;
+    private volatile SecondValue nowTime;
+
+    /**
+     * CTor
+     *
+     * @param dateTimeFormat datetime format string
+     * @param dateFormat     date format string
+     * @param timeFormat     time format string
+     */
+    public DateTimeFormatterRegistry(String dateTimeFormat, String dateFormat, String timeFormat) {
+        zone = ZoneId.systemDefault();
+        formatterCache = new ConcurrentHashMap<>();
+
+        this.dateTimeFormat = dateTimeFormat;
+        this.dateFormat = dateFormat;
+        this.timeFormat = timeFormat;
+
+        dateTimeFormatter = getFormatter(dateTimeFormat, Kind.DATETIME);
+        dateFormatter = getFormatter(dateFormat, Kind.DATE);
+        timeFormatter = getFormatter(timeFormat, Kind.TIME);
+
+        dateTimeSubSecond = hasSubSecondField(dateTimeFormat);
+        dateSubSecond = hasSubSecondField(dateFormat);
+        timeSubSecond = hasSubSecondField(timeFormat);
+    }
+
+    /**
+     * Check the format string has the fields under a second, the quoted literals are skipped
+     *
+     * @param format format string
+     * @return if true, S, n, N or A pattern letter is used
+     */
+    static boolean hasSubSecondField(String format) {
+        if (format == null)
+            return false;
+
+        boolean quoted = false;
+        for (int i = 0; i < format.length(); i++) {
+            char c = format.charAt(i);
+            if (c == '\'')
+                quoted = !quoted;
+            else if (!quoted && (c == 'S' || c == 'n' || c == 'N' || c == 'A'))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Compile format string
+     *
+     * @param format format string
+     * @param kind   {@link Kind}
+     * @return formatter with system default zone
+     */
+    private DateTimeFormatter compile(String format, Kind kind) {
+        try {
+            return DateTimeFormatter.ofPattern(format).withZone(zone);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            ChatDecorator plugin = ChatDecorator.getInstance();
+            plugin.getLogger().error("Invalid " + kind.name + " format: " + format);
+            plugin.getLogger().error("Use default " + kind.name.toLowerCase() + " format");
+            return DateTimeFormatter.ofPattern(kind.defaultFormat).withZone(zone);
+        }
+    }
+
+    /**
+     * Get formatter of format string
+     * <p>
+     * Invalid format string is reported once, and replaced with the default format of the kind.
+     *
+     * @param format format string
+     * @param kind   {@link Kind}
+     * @return formatter
+     */
+    public DateTimeFormatter getFormatter(String format, Kind kind) {
+        if (format == null)
+            return compile(null, kind);
+
+        if (format.equals(dateTimeFormat) && dateTimeFormatter != null)
+            return dateTimeFormatter;
+        if (format.equals(dateFormat) && dateFormatter != null)
+            return dateFormatter;
+        if (format.equals(timeFormat) && timeFormatter != null)
+            return timeFormatter;
+
+        return formatterCache.computeIfAbsent(format + '\0' + kind, x -> compile(format, kind));
+    }
+
+    /**
+     * Format instant
+     *
+     * @param instant instant
+     * @param format  format string
+     * @param kind    {@link Kind}
+     * @return formatted string
+     */
+    public String format(Instant instant, String format, Kind kind) {
+        return getFormatter(format, kind).format(instant);
+    }
+
+    /**
+     * Format the current second, or return the string cached in this second
+     *
+     * @param cached    cached value
+     * @param formatter formatter
+     * @param subSecond if true, the format has the fields under a second and the cached value is not used
+     * @return formatted value of this second
+     */
+    private SecondValue formatNow(SecondValue cached, DateTimeFormatter formatter, boolean subSecond) {
+        long now = System.currentTimeMillis();
+        long epochSecond = Math.floorDiv(now, 1000L);
+        if (!subSecond && cached != null && cached.epochSecond == epochSecond)
+            return cached;
+
+        return new SecondValue(epochSecond, formatter.format(Instant.ofEpochMilli(now)));
+    }
+
+    /**
+     * Check the format string is the configured one
+     *
+     * @param format format string
+     * @param kind   {@link Kind}
+     * @return if true, the current datetime of the format is cached
+     */
+    public boolean isConfiguredFormat(String format, Kind kind) {
+        switch (kind) {
+            case DATETIME:
+                return format != null && format.equals(dateTimeFormat);
+            case DATE:
+                return format != null && format.equals(dateFormat);
+            case TIME:
+                return format != null && format.equals(timeFormat);
+        }
+        return false;
+    }
+
+    /**
+     * Get the current datetime string of configured datetime format
+     *
+     * @return datetime string
+     */
+    public String formatNowDateTime() {
+        SecondValue value = formatNow(nowDateTime, dateTimeFormatter, dateTimeSubSecond);
+        nowDateTime = value;
+        return value.value;
+    }
+
+    /**
+     * Get the current date string of configured date format
+     *
+     * @return date string
+     */
+    public String formatNowDate() {
+        SecondValue value = formatNow(nowDate, dateFormatter, dateSubSecond);
+        nowDate = value;
+        return value.value;
+    }
+
+    /**
+     * Get the current time string of configured time format
+     *
+     * @return time string
+     */
+    public String formatNowTime() {
+        SecondValue value = formatNow(nowTime, timeFormatter, timeSubSecond);
+        nowTime = value;
+        return value.value;
+    }
+}
@@ -1,11 +1,39 @@
 package me.htna.project.chatdecorator;
 
 import com.sun.management.OperatingSystemMXBean;
+import org.spongepowered.api.scheduler.Task;
 
 import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Hardware monitor
+ * <p>
+ * Background task polls {@link OperatingSystemMXBean} on a fixed interval and keeps the samples in ring buffers.
+ * Getters only read the published values, so placeholder rendering never calls JMX.
+ */
 public class HardwareMonitor {
 
+    /**
+     * Sampling interval (unit: millisecond)
+     */
+    private static final int SAMPLE_INTERVAL = 1000;
+
+    /**
+     * Ring buffer size, 15 minutes of samples
+     */
+    private static final int HISTORY_SIZE = 15 * 60 * 1000 / SAMPLE_INTERVAL;
+
+    /**
+     * Sample count of 1 minute
+     */
+    private static final int SAMPLES_1M = 60 * 1000 / SAMPLE_INTERVAL;
+
+    /**
+     * Sample count of 5 minutes
+     */
+    private static final int SAMPLES_5M = 5 * 60 * 1000 / SAMPLE_INTERVAL;
+
     private static HardwareMonitor instance;
     public static HardwareMonitor getInstance() {
         if (instance == null)
@@ -15,8 +43,145 @@ public class HardwareMonitor {
 
     private OperatingSystemMXBean osBean;
 
+    private Task task;
+
+    /**
+     * CPU load history, written only by the sampling task
+     */
+    private final double[] cpuHistory;
+
+    /**
+     * Memory use space history, written only by the sampling task
+     */
+    private final long[] useMemoryHistory;
+
+    /**
+     * Next write position of the ring buffers
+     */
+    private int head;
+
+    /**
+     * Valid sample count of the ring buffers
+     */
+    private int count;
+
+    private volatile double cpuLoad;
+    private volatile long freeMemory;
+    private volatile long totalMemory;
+
+    /**
+     * Memory use space of the same sample as free and total, reading them apart can mix two samples
+     */
+    private volatile long useMemory;
+
+    private volatile double cpuLoad1m;
+    private volatile double cpuLoad5m;
+    private volatile double cpuLoad15m;
+
+    private volatile double useMemory1m;
+    private volatile double useMemory5m;
+    private volatile double useMemory15m;
+
     private HardwareMonitor() {
         osBean = ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+        cpuHistory = new double[HISTORY_SIZE];
+        useMemoryHistory = new long[HISTORY_SIZE];
+    }
+
+    /**
+     * Average of the latest samples
+     *
+     * @param history ring buffer
+     * @param window  sample count
+     * @return average
+     */
+    private double average(double[] history, int window) {
+        int n = Math.min(window, count);
+        if (n == 0)
+            return 0;
+
+        double sum = 0;
+        for (int i = 1; i <= n; i++)
+            sum += history[(head - i + HISTORY_SIZE) % HISTORY_SIZE];
+        return sum / n;
+    }
+
+    /**
+     * Average of the latest samples
+     *
+     * @param history ring buffer
+     * @param window  sample count
+     * @return average
+     */
+    private double average(long[] history, int window) {
+        int n = Math.min(window, count);
+        if (n == 0)
+            return 0;
+
+        double sum = 0;
+        for (int i = 1; i <= n; i++)
+            sum += history[(head - i + HISTORY_SIZE) % HISTORY_SIZE];
+        return sum / n;
+    }
+
+    /**
+     * Poll the MXBean and publish the sample
+     */
+    private void sample() {
+        double load = osBean.getSystemCpuLoad();
+        long free = osBean.getFreePhysicalMemorySize();
+        long total = osBean.getTotalPhysicalMemorySize();
+
+        // CPU load is negative when it is not available yet, keep the previous value.
+        if (load < 0)
+            load = cpuLoad;
+
+        cpuHistory[head] = load;
+        useMemoryHistory[head] = total - free;
+        head = (head + 1) % HISTORY_SIZE;
+        if (count < HISTORY_SIZE)
+            count++;
+
+        cpuLoad = load;
+        freeMemory = free;
+        totalMemory = total;
+        useMemory = total - free;
+
+        cpuLoad1m = average(cpuHistory, SAMPLES_1M);
+        cpuLoad5m = average(cpuHistory, SAMPLES_5M);
+        cpuLoad15m = average(cpuHistory, HISTORY_SIZE);
+
+        useMemory1m = average(useMemoryHistory, SAMPLES_1M);
+        useMemory5m = average(useMemoryHistory, SAMPLES_5M);
+        useMemory15m = average(useMemoryHistory, HISTORY_SIZE);
+    }
+
+    /**
+     * Run sampling task
+     */
+    public void runTask() {
+        if (task != null) {
+            ChatDecorator.getInstance().getLogger().warn("Hardware monitor task already run");
+            return;
+        }
+
+        task = Task.builder().execute(this::sample)
+                .async().interval(SAMPLE_INTERVAL, TimeUnit.MILLISECONDS)
+                .name("Hardware monitor task").submit(ChatDecorator.getInstance().getPlugin());
+
+        ChatDecorator.getInstance().getLogger().info("Run Hardware monitor task");
+    }
+
+    /**
+     * Stop sampling task
+     */
+    public void stopTask() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+
+            ChatDecorator.getInstance().getLogger().info("Stop Hardware monitor task");
+        }
     }
 
     /**
@@ -25,7 +190,34 @@ public class HardwareMonitor {
      * @return 0 ~ 1 CPU load level
      */
     public double getSystemCpuLoad() {
-        return osBean.getSystemCpuLoad();
+        return cpuLoad;
+    }
+
+    /**
+     * Get cpu load average of 1 minute
+     *
+     * @return 0 ~ 1 CPU load level
+     */
+    public double getSystemCpuLoad1m() {
+        return cpuLoad1m;
+    }
+
+    /**
+     * Get cpu load average of 5 minutes
+     *
+     * @return 0 ~ 1 CPU load level
+     */
+    public double getSystemCpuLoad5m() {
+        return cpuLoad5m;
+    }
+
+    /**
+     * Get cpu load average of 15 minutes
+     *
+     * @return 0 ~ 1 CPU load level
+     */
+    public double getSystemCpuLoad15m() {
+        return cpuLoad15m;
     }
 
     /**
@@ -34,7 +226,7 @@ public class HardwareMonitor {
      * @return Memory free space (unit: byte)
      */
     public long getSystemFreeMemory() {
-        return osBean.getFreePhysicalMemorySize();
+        return freeMemory;
     }
 
     /**
@@ -43,7 +235,7 @@ public class HardwareMonitor {
      * @return Memory total space (unit: byte)
      */
     public long getSystemTotalMemory() {
-        return osBean.getTotalPhysicalMemorySize();
+        return totalMemory;
     }
 
     /**
@@ -52,6 +244,33 @@ public class HardwareMonitor {
      * @return Memory use space (unit: byte)
      */
     public long getSystemUseMemory() {
-        return getSystemTotalMemory() - getSystemFreeMemory();
+        return useMemory;
+    }
+
+    /**
+     * Get system memory use space average of 1 minute
+     *
+     * @return Memory use space (unit: byte)
+     */
+    public double getSystemUseMemory1m() {
+        return useMemory1m;
+    }
+
+    /**
+     * Get system memory use space average of 5 minutes
+     *
+     * @return Memory use space (unit: byte)
+     */
+    public double getSystemUseMemory5m() {
+        return useMemory5m;
+    }
+
+    /**
+     * Get system memory use space average of 15 minutes
+     *
+     * @return Memory use space (unit: byte)
+     */
+    public double getSystemUseMemory15m() {
+        return useMemory15m;
     }
 }
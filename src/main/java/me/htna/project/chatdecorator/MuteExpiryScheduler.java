@@ -0,0 +1,215 @@
+package me.htna.project.chatdecorator;
+
+import me.htna.project.chatdecorator.database.entities.MUTEINFO;
+import me.htna.project.chatdecorator.struct.Message;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.text.Text;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timed mute expiry scheduler
+ * <p>
+ * One hashed timing wheel holds every timed mute, a tick processes only one slot of the wheel,
+ * so the cost of a tick does not depend on the count of the timed mutes.
+ * A mute farther than one turn of the wheel waits for its remaining rounds in the slot.
+ * <p>
+ * Scheduling and the ticks run on the server thread only, the wheel takes no lock.
+ * The active timed mutes are scheduled again from the database on the server start.
+ */
+public class MuteExpiryScheduler {
+
+    /**
+     * Slot count of the wheel, power of 2
+     */
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /**
+     * Tick duration (unit: millisecond)
+     */
+    private static final long TICK = 1000;
+
+    /**
+     * Scheduled expiry of a user
+     */
+    private static class Timeout {
+        private final UUID uuid;
+        private final Instant expireAt;
+
+        /**
+         * Remaining turns of the wheel before the expiry
+         */
+        private long rounds;
+        private boolean cancelled;
+
+        private Timeout(UUID uuid, Instant expireAt, long rounds) {
+            this.uuid = uuid;
+            this.expireAt = expireAt;
+            this.rounds = rounds;
+        }
+    }
+
+    private static MuteExpiryScheduler instance;
+    public static MuteExpiryScheduler getInstance() {
+        if (instance == null)
+            instance = new MuteExpiryScheduler();
+        return instance;
+    }
+
+    private final List<List<Timeout>> wheel;
+    private final Map<UUID, Timeout> timeouts;
+
+    /**
+     * Time of the tick 0 (unit: millisecond)
+     */
+    private final long startTime;
+
+    /**
+     * Next tick to process
+     */
+    private long tick;
+
+    private Task task;
+
+    private MuteExpiryScheduler() {
+        wheel = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++)
+            wheel.add(new ArrayList<>());
+        timeouts = new HashMap<>();
+        startTime = System.currentTimeMillis();
+        tick = 0;
+    }
+
+    /**
+     * Get count of the scheduled timed mutes
+     *
+     * @return count
+     */
+    public int getPendingCount() {
+        return timeouts.size();
+    }
+
+    /**
+     * Schedule the expiry of the timed mute
+     * <p>
+     * Replaces the previous schedule of the user. An expiry in the past expires on the next tick.
+     *
+     * @param uuid     Player's uuid
+     * @param expireAt Expire datetime
+     */
+    public void schedule(UUID uuid, Instant expireAt) {
+        cancel(uuid);
+
+        long deadline = Math.max((expireAt.toEpochMilli() - startTime + TICK - 1) / TICK, tick);
+        Timeout timeout = new Timeout(uuid, expireAt, (deadline - tick) / WHEEL_SIZE);
+        wheel.get((int) (deadline & WHEEL_MASK)).add(timeout);
+        timeouts.put(uuid, timeout);
+    }
+
+    /**
+     * Cancel the expiry of the user, ex) unmuted by the command
+     *
+     * @param uuid Player's uuid
+     */
+    public void cancel(UUID uuid) {
+        Timeout timeout = timeouts.remove(uuid);
+        if (timeout != null)
+            timeout.cancelled = true;
+    }
+
+    /**
+     * Process the slots of the elapsed ticks
+     */
+    private void advance() {
+        long now = (System.currentTimeMillis() - startTime) / TICK;
+        for (; tick <= now; tick++) {
+            Iterator<Timeout> iterator = wheel.get((int) (tick & WHEEL_MASK)).iterator();
+            while (iterator.hasNext()) {
+                Timeout timeout = iterator.next();
+                if (timeout.cancelled) {
+                    iterator.remove();
+                } else if (timeout.rounds > 0) {
+                    timeout.rounds--;
+                } else {
+                    iterator.remove();
+                    timeouts.remove(timeout.uuid);
+                    expire(timeout);
+                }
+            }
+        }
+    }
+
+    /**
+     * Unmute the expired user, in memory and in the database
+     *
+     * @param timeout {@link Timeout}
+     */
+    private void expire(Timeout timeout) {
+        ChatDecorator.getInstance().getLogger().info("Mute expired: " + timeout.uuid + " (" + timeout.expireAt + ")");
+
+        UserManager.getInstance().expireMute(timeout.uuid, UserManager.IDENT_SERVER_CONSOLE);
+        ChatDecorator.getInstance().getAsyncDb().expireMute(timeout.uuid.toString(), UserManager.IDENT_SERVER_CONSOLE, Instant.now());
+
+        Optional<Player> player = Sponge.getServer().getPlayer(timeout.uuid);
+        if (player.isPresent()) {
+            Message msg = new Message(player.get());
+            Text text = TemplateParser.getInstance().parseText(Config.getInstance().getUnmuteTemplate(), msg);
+            player.get().sendMessage(text);
+        }
+    }
+
+    /**
+     * Run expiry task and schedule the active timed mutes in the database
+     */
+    public void runTask() {
+        if (task != null) {
+            ChatDecorator.getInstance().getLogger().warn("Mute expiry task already run");
+            return;
+        }
+
+        task = Task.builder().execute(this::advance)
+                .delay(TICK, TimeUnit.MILLISECONDS).interval(TICK, TimeUnit.MILLISECONDS)
+                .name("Mute expiry task").submit(ChatDecorator.getInstance().getPlugin());
+
+        ChatDecorator.getInstance().getAsyncDb().selectActiveTimedMutes()
+                .whenCompleteAsync((list, e) -> {
+                    if (e != null) {
+                        ChatDecorator.getInstance().getLogger().error("Load timed mutes error: " + e);
+                        return;
+                    }
+                    for (MUTEINFO muteInfo : list)
+                        muteInfo.getExpire_datetime().ifPresent(x -> schedule(UUID.fromString(muteInfo.getUuid()), x));
+                    ChatDecorator.getInstance().getLogger().info("Schedule timed mutes: " + list.size());
+                }, ChatDecorator.getInstance().getAsyncDb().getSyncExecutor());
+
+        ChatDecorator.getInstance().getLogger().info("Run Mute expiry task");
+    }
+
+    /**
+     * Stop expiry task
+     * <p>
+     * The remaining mutes stay in the database and are scheduled again on the next start.
+     */
+    public void stopTask() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+
+            ChatDecorator.getInstance().getLogger().info("Stop Mute expiry task");
+        }
+        for (List<Timeout> slot : wheel)
+            slot.clear();
+        timeouts.clear();
+    }
+}
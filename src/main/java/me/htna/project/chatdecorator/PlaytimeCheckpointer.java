@@ -0,0 +1,111 @@
+package me.htna.project.chatdecorator;
+
+import me.htna.project.chatdecorator.struct.UserInfo;
+import org.spongepowered.api.scheduler.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Playtime checkpointer
+ * <p>
+ * Playtime is accumulated in {@link UserInfo}, and written to the database periodically.
+ * Every user whose playtime changed after the last write, online or disconnected, is written
+ * in one transaction. A crash loses the playtime of one interval at most.
+ * <p>
+ * The users are collected on the server thread and written on the database executor.
+ * Disconnected users written by the previous checkpoint are evicted from {@link UserManager} at the same time.
+ */
+public class PlaytimeCheckpointer {
+
+    /**
+     * Maximum wait for the flush on the server stop (unit: millisecond)
+     */
+    private static final long FLUSH_TIMEOUT = 5000;
+
+    private static PlaytimeCheckpointer instance;
+    public static PlaytimeCheckpointer getInstance() {
+        if (instance == null)
+            instance = new PlaytimeCheckpointer();
+        return instance;
+    }
+
+    private Task task;
+
+    private PlaytimeCheckpointer() {
+    }
+
+    /**
+     * Write the changed playtime of the users
+     *
+     * @return future of the write, completed when nothing to write
+     */
+    private CompletableFuture<Void> checkpoint() {
+        int evicted = UserManager.getInstance().evictOfflineUsers();
+        if (evicted > 0)
+            ChatDecorator.getInstance().getLogger().debug("Evict offline users: " + evicted);
+
+        Map<UserInfo, Long> dirty = new HashMap<>();
+        Map<String, Long> playtimes = new HashMap<>();
+        for (UserInfo userInfo : UserManager.getInstance().getUsers()) {
+            if (!userInfo.isPlayTimeDirty())
+                continue;
+
+            long playTime = userInfo.getPlayTime();
+            dirty.put(userInfo, playTime);
+            playtimes.put(userInfo.getUuid(), playTime);
+        }
+        if (playtimes.isEmpty())
+            return CompletableFuture.completedFuture(null);
+
+        ChatDecorator.getInstance().getLogger().debug("Checkpoint playtime, users: " + playtimes.size());
+        // 실패한 유저는 다음 주기에 다시 기록
+        return ChatDecorator.getInstance().getAsyncDb().updateUserPlaytimes(playtimes)
+                .thenRun(() -> dirty.forEach(UserInfo::setSavedPlayTime));
+    }
+
+    /**
+     * Run checkpoint task
+     */
+    public void runTask() {
+        if (task != null) {
+            ChatDecorator.getInstance().getLogger().warn("Playtime checkpoint task already run");
+            return;
+        }
+
+        int interval = Config.getInstance().getPlaytimeCheckpointInterval();
+        task = Task.builder().execute(this::checkpoint)
+                .delay(interval, TimeUnit.SECONDS).interval(interval, TimeUnit.SECONDS)
+                .name("Playtime checkpoint task").submit(ChatDecorator.getInstance().getPlugin());
+
+        ChatDecorator.getInstance().getLogger().info("Run Playtime checkpoint task");
+    }
+
+    /**
+     * Stop checkpoint task and write the remaining playtime
+     * <p>
+     * Waits {@link #FLUSH_TIMEOUT} at most, so a slow database does not hold the server stop.
+     */
+    public void stopTask() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+
+            ChatDecorator.getInstance().getLogger().info("Stop Playtime checkpoint task");
+        }
+
+        try {
+            checkpoint().get(FLUSH_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            ChatDecorator.getInstance().getLogger().warn("Playtime flush did not complete in " + FLUSH_TIMEOUT + "ms");
+        } catch (ExecutionException e) {
+            ChatDecorator.getInstance().getLogger().error("Playtime flush error: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -8,9 +8,9 @@ import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.profile.GameProfile;
 import org.spongepowered.api.scheduler.Task;
 import org.spongepowered.api.text.Text;
-import org.spongepowered.api.text.serializer.TextSerializers;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class TabDecorationManager {
@@ -37,7 +37,7 @@ public class TabDecorationManager {
     private int headerPos;
     private int footerPos;
 
-    private Map<UUID, Text> entryList;
+    private volatile Map<UUID, Text> entryList;
 
     private TabDecorationManager() {
         reload();
@@ -47,7 +47,7 @@ public class TabDecorationManager {
         Message msg = new Message(player);
         TemplateParser parser = TemplateParser.getInstance();
 
-        Text text = TextSerializers.FORMATTING_CODE.deserialize(parser.parse(entryTemplate, msg));
+        Text text = parser.parseText(entryTemplate, msg);
         entryList.put(player.getUniqueId(), text);
     }
 
@@ -76,7 +76,7 @@ public class TabDecorationManager {
     }
 
     public void removeUser(Player player) {
-        entryList.remove(player.getUniqueId().toString());
+        entryList.remove(player.getUniqueId());
     }
 
     public void reload() {
@@ -96,7 +96,8 @@ public class TabDecorationManager {
         headerPos = 0;
         footerPos = 0;
 
-        entryList = new HashMap<>();
+        // 비동기 작업에서 읽으므로 동시성 맵 사용
+        entryList = new ConcurrentHashMap<>();
         convertEntryNameAll();
 
         if (enabled)
@@ -119,8 +120,8 @@ public class TabDecorationManager {
             var players = server.getOnlinePlayers();
             players.stream().forEach(p -> {
                 Message msg = new Message(p);
-                Text header = TextSerializers.FORMATTING_CODE.deserialize(parser.parse(headerTemplate, msg));
-                Text footer = TextSerializers.FORMATTING_CODE.deserialize(parser.parse(footerTemplate, msg));
+                Text header = parser.parseText(headerTemplate, msg);
+                Text footer = parser.parseText(footerTemplate, msg);
 
                 var tabList = p.getTabList();
                 tabList.setHeaderAndFooter(header, footer);
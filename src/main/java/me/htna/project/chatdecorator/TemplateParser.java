@@ -1,12 +1,16 @@
 package me.htna.project.chatdecorator;
 
 import me.htna.project.chatdecorator.placeholderHandlers.IPlaceholderHandler;
+import me.htna.project.chatdecorator.placeholderHandlers.PlaceholderScope;
 import me.htna.project.chatdecorator.struct.Message;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.text.Text;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Template parser
@@ -29,22 +33,137 @@ public class TemplateParser {
         return instance;
     }
 
+    /**
+     * Placeholder resolved to the handler
+     * <p>
+     * Bindings in the dispatch table are shared by every compiled template,
+     * so tick scoped values are memoized here.
+     */
+    static class Binding {
+        /**
+         * Placeholder handler
+         */
+        final IPlaceholderHandler handler;
+
+        /**
+         * Placeholder key without namespace, or null if the handler is not indexed
+         */
+        final String key;
+
+        /**
+         * Volatility class of the corresponding value
+         */
+        final PlaceholderScope scope;
+
+        /**
+         * Value memoized for a tick
+         */
+        private volatile TickValue tickValue;
+
+        Binding(IPlaceholderHandler handler, String key, String placeholder) {
+            this.handler = handler;
+            this.key = key;
+            this.scope = handler.getScope(key == null ? placeholder : key);
+        }
+
+        /**
+         * Replace placeholder with the corresponding value, without memoization
+         *
+         * @param placeholder Placeholder
+         * @param message {@link Message}
+         * @return corresponding value
+         */
+        String replace(String placeholder, Message message) {
+            if (key == null)
+                return handler.replace(placeholder, message);
+
+            return handler.replaceKey(key, message);
+        }
+
+        /**
+         * Replace placeholder with the corresponding value memoized at tick or player scope
+         *
+         * @param placeholder Placeholder
+         * @param message {@link Message}
+         * @return corresponding value
+         */
+        String resolve(String placeholder, Message message) {
+            switch (scope) {
+                case TICK:
+                    int tick = getCurrentTick();
+                    TickValue cached = tickValue;
+                    if (cached != null && cached.tick == tick)
+                        return cached.value;
+
+                    String value = replace(placeholder, message);
+                    tickValue = new TickValue(tick, value);
+                    return value;
+                case PLAYER:
+                    if (message.hasPlaceholderValue(this))
+                        return message.getPlaceholderValue(this);
+
+                    String playerValue = replace(placeholder, message);
+                    message.putPlaceholderValue(this, playerValue);
+                    return playerValue;
+                default:
+                    return replace(placeholder, message);
+            }
+        }
+    }
+
+    /**
+     * Corresponding value of a tick
+     */
+    private static class TickValue {
+        final int tick;
+        final String value;
+
+        TickValue(int tick, String value) {
+            this.tick = tick;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Get current server tick
+     *
+     * @return running time ticks of the server
+     */
+    static int getCurrentTick() {
+        return Sponge.getServer().getRunningTimeTicks();
+    }
+
     /**
      * Placeholder handler list
      */
-    private List<IPlaceholderHandler> placeholders;
+    private final List<IPlaceholderHandler> placeholders;
 
     /**
-     * Compiled placeholder pattern
+     * Placeholder dispatch table
+     * <p>
+     * namespace -> (lower case key -> binding)
      */
-    private final Pattern pattern;
+    private final Map<String, Map<String, Binding>> dispatchTable;
+
+    /**
+     * Maximum count of cached templates
+     */
+    private static final int MAX_CACHED_TEMPLATE = 256;
+
+    /**
+     * Compiled template cache
+     * <p>
+     * Key is the template string. Tab decoration task renders asynchronously, so it must be concurrent.
+     */
+    private final Map<String, CompiledTemplate> templateCache;
 
     /**
      * CTOR
      */
     private TemplateParser() {
-        pattern = Pattern.compile("%[^%]*%");
-        placeholders = new ArrayList<>();
+        placeholders = new CopyOnWriteArrayList<>();
+        dispatchTable = new ConcurrentHashMap<>();
+        templateCache = new ConcurrentHashMap<>();
     }
 
     /**
@@ -59,6 +178,9 @@ public class TemplateParser {
 
     /**
      * Add placeholder handler
+     * <p>
+     * If the handler declares a namespace, its supported keys are registered to the dispatch table.
+     * When the same key is declared by several handlers, the first added handler takes it.
      *
      * @param placeholder placeholder handler
      * @throws Exception Same placeholder is already added.
@@ -68,29 +190,89 @@ public class TemplateParser {
             throw new Exception("Placeholder " + placeholder.getPlaceholderHandlerName() + " is already added");
 
         placeholders.add(placeholder);
+
+        String namespace = placeholder.getNamespace();
+        if (namespace != null) {
+            Map<String, Binding> keys = dispatchTable.computeIfAbsent(namespace, x -> new ConcurrentHashMap<>());
+            for (String key : placeholder.getSupportedKeys())
+                keys.putIfAbsent(key.toLowerCase(Locale.ROOT), new Binding(placeholder, key, null));
+        }
+
+        clearCache();
+    }
+
+    /**
+     * Clear compiled template cache
+     * <p>
+     * Must be called when the configuration is reloaded.
+     */
+    public void clearCache() {
+        templateCache.clear();
     }
 
     /**
-     * Replace placeholder
+     * Get compiled template from cache, or compile it.
      *
-     * @param placeholder Placeholder key
-     * @param message {@link Message}
-     * @return corresponding value
-     */
-    private String replace(String placeholder, Message message) {
-        // ChatDecorator.getInstance().getLogger().debug("TemplateParser#replace, handler count: " + placeholders.size());
-        return placeholders
-                .stream()
-                .filter(x -> {
-                    // ChatDecorator.getInstance().getLogger().debug("TemplateParser#replace, Filtered placeholder handler: " + x.getPlaceholderHandlerName());
-                    return x.IsTargetPlaceholder(placeholder);
-                })
-                .findFirst()
-                .map(x -> {
-                    // ChatDecorator.getInstance().getLogger().debug("TemplateParser#replace, Selected placeholder handler: " + x.getPlaceholderHandlerName());
-                    return x.replace(placeholder, message);
-                })
-                .orElse(null);
+     * @param template template string
+     * @return {@link CompiledTemplate}
+     */
+    public CompiledTemplate compile(String template) {
+        CompiledTemplate compiled = templateCache.get(template);
+        if (compiled != null)
+            return compiled;
+
+        // Template strings come from the configuration, so this only happens when someone parses arbitrary strings.
+        if (templateCache.size() >= MAX_CACHED_TEMPLATE)
+            templateCache.clear();
+
+        compiled = CompiledTemplate.compile(template, this);
+        templateCache.put(template, compiled);
+        return compiled;
+    }
+
+    /**
+     * Find the handler of placeholder
+     * <p>
+     * Called once per placeholder when the template is compiled.
+     * %NAMESPACE.key% is looked up in the dispatch table,
+     * and handlers without namespace are asked with {@link IPlaceholderHandler#IsTargetPlaceholder(String)}.
+     *
+     * @param placeholder Placeholder
+     * @return {@link Binding}, or null if there is no handler
+     */
+    Binding bind(String placeholder) {
+        String inner = placeholder.substring(1, placeholder.length() - 1);
+        int dot = inner.indexOf('.');
+        String namespace = dot < 0 ? "" : inner.substring(0, dot);
+        String key = dot < 0 ? inner : inner.substring(dot + 1);
+
+        Map<String, Binding> keys = dispatchTable.get(namespace);
+        if (keys != null) {
+            Binding binding = keys.get(key.toLowerCase(Locale.ROOT));
+            if (binding != null)
+                return binding;
+        }
+
+        for (IPlaceholderHandler handler : placeholders) {
+            if (handler.getNamespace() == null && handler.IsTargetPlaceholder(placeholder))
+                return new Binding(handler, null, placeholder);
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the value used when there is no corresponding value
+     *
+     * @param placeholder Placeholder
+     * @return default placeholder corresponding value
+     */
+    String getDefaultValue(String placeholder) {
+        String defaultPlaceholderCorrespondingValue = Config.getInstance().getDefaultPlaceholderCorrespondingValue();
+        if (defaultPlaceholderCorrespondingValue.isEmpty())
+            return placeholder;
+
+        return defaultPlaceholderCorrespondingValue;
     }
 
     /**
@@ -101,32 +283,17 @@ public class TemplateParser {
      * @return formatted string
      */
     public String parse(String template, Message message) {
-        StringBuilder sb = new StringBuilder(template);
-        List<Object> valueList = new ArrayList<>();
-        Matcher matcher = pattern.matcher(template);
-        while(matcher.find()) {
-            String placeholder = matcher.group();
-
-            int start = sb.indexOf(placeholder);
-            int end = start + placeholder.length();
-            sb.replace(start, end, "%s");
-
-            String correspondingValue = replace(placeholder, message);
-            if (correspondingValue == null) {
-                // if corresponding value is empty
-                Config config = Config.getInstance();
-                String defaultPlaceholderCorrespondingValue = config.getDefaultPlaceholderCorrespondingValue();
-
-                if (defaultPlaceholderCorrespondingValue.isEmpty()) {
-                    correspondingValue = placeholder;
-                } else {
-                    correspondingValue = defaultPlaceholderCorrespondingValue;
-                }
-            }
-
-            valueList.add(correspondingValue);
-        }
+        return compile(template).render(message);
+    }
 
-        return String.format(sb.toString(), valueList.toArray());
+    /**
+     * Parse template to {@link Text}
+     *
+     * @param template template string
+     * @param message {@link Message}
+     * @return formatted {@link Text}
+     */
+    public Text parseText(String template, Message message) {
+        return compile(template).renderText(message);
     }
 }
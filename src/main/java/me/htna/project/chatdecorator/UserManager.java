@@ -7,52 +7,124 @@ import org.spongepowered.api.entity.living.player.User;
 import org.spongepowered.api.service.user.UserStorageService;
 
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Online user manager class
+ * <p>
+ * Joins and disconnects write on the server thread, while the chat path and the async tab decoration task read.
+ * Users are kept in a {@link ConcurrentHashMap} keyed by {@link UUID}, so the reads take no lock
+ * and {@link Player#getUniqueId()} is used without converting to a string.
+ * <p>
+ * Disconnected users are evicted once their playtime is written, so the map holds the online users only.
+ * Offline users are loaded from the database on demand and kept in a small LRU cache.
+ * <p>
+ * Player names are cached with a TTL, the names not found are cached too,
+ * so {@link UserStorageService} is not asked again for every mute log row and placeholder.
  */
 public class UserManager {
     public static final String IDENT_SERVER_CONSOLE = "UUID_SERVER_CONSOLE";
     public static final String IDENT_UNKNOWN = "UUID_UNKNOWN";
 
-    private static UserManager instance;
-    private final Map<String, UserInfo> userInfoList;
+    /**
+     * Lazy initialization holder, the class loading guarantees one instance
+     */
+    private static class Holder {
+        private static final UserManager INSTANCE = new UserManager();
+    }
 
     /**
-     * CTor
+     * Maximum offline users in the cache
      */
-    private UserManager() {
-        userInfoList = new HashMap<>();
+    private static final int OFFLINE_CACHE_SIZE = 256;
 
-        // put default user info (server console and unknwon)
-        userInfoList.put(IDENT_SERVER_CONSOLE, new UserInfo(IDENT_SERVER_CONSOLE, Instant.now(), Instant.now(), 0));
-        userInfoList.put(IDENT_UNKNOWN, new UserInfo(IDENT_UNKNOWN, Instant.now(), Instant.now(), 0));
-    }
+    /**
+     * Maximum names in the cache
+     */
+    private static final int NAME_CACHE_SIZE = 1024;
 
-    public static UserManager getInstance() {
-        if (instance == null)
-            instance = new UserManager();
+    /**
+     * Lifetime of the cached name (unit: millisecond)
+     */
+    private static final long NAME_TTL = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Lifetime of the cached name not found (unit: millisecond)
+     */
+    private static final long NAME_NEGATIVE_TTL = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Cached name of a player
+     */
+    private static class NameEntry {
+        /**
+         * Player name, null if not found
+         */
+        private final String name;
+        private final long expireAt;
 
-        return instance;
+        private NameEntry(String name, long expireAt) {
+            this.name = name;
+            this.expireAt = expireAt;
+        }
     }
 
+    private final Map<UUID, UserInfo> userInfoList;
+
     /**
-     * Add userinfo
-     *
-     * @param uuid player uuid
-     * @param first first join instant
-     * @param last last join instant
-     * @param playTime playtime
-     * @return {@link UserInfo}
+     * Offline users in access order, the least recently used one is removed first
      */
-    private UserInfo addUser(String uuid, Instant first, Instant last, long playTime) {
-        UserInfo userInfo = new UserInfo(uuid, first, last, playTime);
-        userInfoList.put(userInfo.getUuid(), userInfo);
-        return userInfo;
+    private final Map<UUID, UserInfo> offlineUserList;
+
+    /**
+     * Player names in access order, the least recently used one is removed first
+     */
+    private final Map<UUID, NameEntry> nameCache;
+    private final AtomicLong nameHitCount;
+    private final AtomicLong nameMissCount;
+
+    /**
+     * Server console and unknown source, they are not players
+     */
+    private final UserInfo consoleInfo;
+    private final UserInfo unknownInfo;
+
+    /**
+     * CTor
+     */
+    private UserManager() {
+        userInfoList = new ConcurrentHashMap<>();
+        offlineUserList = Collections.synchronizedMap(new LinkedHashMap<UUID, UserInfo>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, UserInfo> eldest) {
+                return size() > OFFLINE_CACHE_SIZE;
+            }
+        });
+        nameCache = Collections.synchronizedMap(new LinkedHashMap<UUID, NameEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, NameEntry> eldest) {
+                return size() > NAME_CACHE_SIZE;
+            }
+        });
+        nameHitCount = new AtomicLong();
+        nameMissCount = new AtomicLong();
+
+        consoleInfo = new UserInfo(IDENT_SERVER_CONSOLE, Instant.now(), Instant.now(), 0);
+        unknownInfo = new UserInfo(IDENT_UNKNOWN, Instant.now(), Instant.now(), 0);
+    }
+
+    public static UserManager getInstance() {
+        return Holder.INSTANCE;
     }
 
     /**
@@ -63,14 +135,9 @@ public class UserManager {
      * @param last
      * @param playTime
      */
-    public UserInfo joinUser(String uuid, Instant first, Instant last, long playTime) {
-        Optional<UserInfo> userInfo = findUser(uuid);
-        UserInfo info;
-        if (userInfo.isPresent()) {
-            info = userInfo.get();
-        } else {
-            info = addUser(uuid, first, last, playTime);
-        }
+    public UserInfo joinUser(UUID uuid, Instant first, Instant last, long playTime) {
+        offlineUserList.remove(uuid);
+        UserInfo info = userInfoList.computeIfAbsent(uuid, x -> new UserInfo(x.toString(), first, last, playTime));
         info.join(last, playTime);
         return info;
     }
@@ -94,7 +161,7 @@ public class UserManager {
      * @return {@link Optional} UserInfo
      */
     public Optional<UserInfo> findUser(Player player) {
-        return findUser(player.getUniqueId().toString());
+        return findUser(player.getUniqueId());
     }
 
     /**
@@ -103,21 +170,117 @@ public class UserManager {
      * @param uuid player unique id
      * @return {@link Optional} UserInfo
      */
-    public Optional<UserInfo> findUser(String uuid) {
+    public Optional<UserInfo> findUser(UUID uuid) {
         return Optional.ofNullable(userInfoList.get(uuid));
     }
 
+    /**
+     * Find user info
+     *
+     * @param uuid player unique id string, or {@link #IDENT_SERVER_CONSOLE}, {@link #IDENT_UNKNOWN}
+     * @return {@link Optional} UserInfo
+     */
+    public Optional<UserInfo> findUser(String uuid) {
+        if (uuid.equals(IDENT_SERVER_CONSOLE))
+            return Optional.of(consoleInfo);
+        if (uuid.equals(IDENT_UNKNOWN))
+            return Optional.of(unknownInfo);
+
+        try {
+            return findUser(UUID.fromString(uuid));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Load user info of an online or offline user
+     * <p>
+     * Offline users are read from the database off the server thread and cached.
+     *
+     * @param uuid player unique id
+     * @return future of the user info, empty if the user has never joined
+     */
+    public CompletableFuture<Optional<UserInfo>> loadUser(UUID uuid) {
+        Optional<UserInfo> userInfo = findUser(uuid);
+        if (!userInfo.isPresent())
+            userInfo = Optional.ofNullable(offlineUserList.get(uuid));
+        if (userInfo.isPresent())
+            return CompletableFuture.completedFuture(userInfo);
+
+        return ChatDecorator.getInstance().getAsyncDb().selectUserProfile(uuid.toString()).thenApply(profile ->
+                profile.getUserInfo().map(table -> {
+                    UserInfo info = new UserInfo(table.getUuid(), table.getJoin(), table.getLast(), table.getPlaytime());
+                    info.applyProfile(profile);
+                    offlineUserList.put(uuid, info);
+                    return info;
+                }));
+    }
+
+    /**
+     * Evict the disconnected users whose playtime is written
+     * <p>
+     * Evicted users are moved to the offline cache. Call it on the server thread, where the users join.
+     *
+     * @return evicted user count
+     */
+    public int evictOfflineUsers() {
+        int count = 0;
+        Iterator<Map.Entry<UUID, UserInfo>> it = userInfoList.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, UserInfo> entry = it.next();
+            UserInfo userInfo = entry.getValue();
+            if (userInfo.isJoined() || userInfo.isPlayTimeDirty())
+                continue;
+
+            it.remove();
+            offlineUserList.put(entry.getKey(), userInfo);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get online user count
+     *
+     * @return user count, including the disconnected users not evicted yet
+     */
+    public int getUserCount() {
+        return userInfoList.size();
+    }
+
+    /**
+     * Get cached offline user count
+     *
+     * @return user count
+     */
+    public int getOfflineUserCount() {
+        return offlineUserList.size();
+    }
+
+    /**
+     * Get every user info in memory, joined or exited
+     * <p>
+     * The view is weakly consistent, users joined while iterating may not be seen.
+     *
+     * @return unmodifiable view of the user infos
+     */
+    public Collection<UserInfo> getUsers() {
+        return Collections.unmodifiableCollection(userInfoList.values());
+    }
+
     /**
      * Mute user
      *
      * @param uuid       Target player uuid
      * @param sourceUuid Source uuid
      * @param reason     Reason of mute
+     * @param expire     Expire datetime, null if the mute has no expiry
      * @return if true, success mute
      */
-    public boolean muteUser(String uuid, String sourceUuid, String reason) {
+    public boolean muteUser(String uuid, String sourceUuid, String reason, Instant expire) {
         Optional<UserInfo> userInfo = findUser(uuid);
-        return userInfo.map(x -> x.mute(sourceUuid, reason)).orElse(false);
+        return userInfo.map(x -> x.mute(sourceUuid, reason, expire)).orElse(false);
     }
 
     /**
@@ -132,6 +295,27 @@ public class UserManager {
         return userInfo.map(x -> x.unmute(sourceUuid)).orElse(false);
     }
 
+    /**
+     * Unmute the expired timed mute of the user
+     *
+     * @param targetUuid Player's uuid
+     * @param sourceUuid Source uuid
+     * @return if true, the user is in memory and unmuted now
+     */
+    public boolean expireMute(UUID targetUuid, String sourceUuid) {
+        offlineUserList.remove(targetUuid);
+        Optional<UserInfo> userInfo = findUser(targetUuid);
+        return userInfo.map(x -> x.expireMute(sourceUuid)).orElse(false);
+    }
+
+    /**
+     * Get user name
+     * <p>
+     * The name is looked up in the cache first, then in the online players and the offline user storage.
+     *
+     * @param uuid player unique id string, or {@link #IDENT_SERVER_CONSOLE}, {@link #IDENT_UNKNOWN}
+     * @return user name, null if not found
+     */
     public String getName(String uuid) {
         if (uuid.equals(IDENT_SERVER_CONSOLE)) {
             return "Server console";
@@ -141,6 +325,27 @@ public class UserManager {
 
         UUID uid = UUID.fromString(uuid);
 
+        long now = System.currentTimeMillis();
+        NameEntry entry = nameCache.get(uid);
+        if (entry != null && now < entry.expireAt) {
+            nameHitCount.incrementAndGet();
+            return entry.name;
+        }
+        nameMissCount.incrementAndGet();
+
+        // 저장소 조회는 디스크를 읽을 수 있으므로 캐시 잠금 밖에서 조회
+        String name = lookupName(uid);
+        nameCache.put(uid, new NameEntry(name, now + (name != null ? NAME_TTL : NAME_NEGATIVE_TTL)));
+        return name;
+    }
+
+    /**
+     * Look up user name without the cache
+     *
+     * @param uid player unique id
+     * @return user name, null if not found
+     */
+    private String lookupName(UUID uid) {
         Optional<Player> player = Sponge.getServer().getPlayer(uid);
         if (player.isPresent())
             return player.get().getName();
@@ -153,6 +358,47 @@ public class UserManager {
         return userStorage.get().get(uid).map(User::getName).orElse(null);
     }
 
+    /**
+     * Cache the name of the joined player
+     * <p>
+     * The name can be changed only while the player is offline, so the name on join replaces the cached one.
+     *
+     * @param player {@link Player}
+     * @return if true, the player joined with a name different from the cached one
+     */
+    public boolean cacheName(Player player) {
+        NameEntry entry = nameCache.put(player.getUniqueId(),
+                new NameEntry(player.getName(), System.currentTimeMillis() + NAME_TTL));
+        return entry != null && entry.name != null && !entry.name.equals(player.getName());
+    }
+
+    /**
+     * Get count of the cached names, including the names not found
+     *
+     * @return count
+     */
+    public int getNameCacheSize() {
+        return nameCache.size();
+    }
+
+    /**
+     * Get count of the names served from the cache
+     *
+     * @return count
+     */
+    public long getNameHitCount() {
+        return nameHitCount.get();
+    }
+
+    /**
+     * Get count of the names looked up in the user storage
+     *
+     * @return count
+     */
+    public long getNameMissCount() {
+        return nameMissCount.get();
+    }
+
     /**
      * Get user name
      *
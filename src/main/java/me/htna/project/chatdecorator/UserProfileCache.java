@@ -0,0 +1,116 @@
+package me.htna.project.chatdecorator;
+
+import me.htna.project.chatdecorator.database.UserProfile;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Staging cache of the user profiles loading while the players connect
+ * <p>
+ * The profile load starts on {@code ClientConnectionEvent.Auth}, off the server thread,
+ * and the join handler takes it out of this cache.
+ * A profile not taken in {@link #EXPIRE_TIME}, e.g. login denied by other plugin, is discarded.
+ */
+public class UserProfileCache {
+
+    /**
+     * Lifetime of a staged profile (unit: millisecond)
+     */
+    private static final long EXPIRE_TIME = 60 * 1000;
+
+    /**
+     * Staged profile load
+     */
+    private static class Entry {
+        final CompletableFuture<UserProfile> future;
+        final long expireAt;
+
+        Entry(CompletableFuture<UserProfile> future, long expireAt) {
+            this.future = future;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * Lazy initialization holder, the class loading guarantees one instance
+     * <p>
+     * First reached from the auth handler on the network threads, so the instance must not be created twice.
+     */
+    private static class Holder {
+        private static final UserProfileCache INSTANCE = new UserProfileCache();
+    }
+
+    public static UserProfileCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private final Map<String, Entry> entries;
+
+    private UserProfileCache() {
+        entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Current time for the expiration
+     *
+     * @return monotonic time (unit: millisecond)
+     */
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Remove expired profiles
+     *
+     * @param now current time
+     */
+    private void purge(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expireAt - now < 0)
+                it.remove();
+        }
+    }
+
+    /**
+     * Start loading the profile of the connecting user
+     *
+     * @param uuid user uuid
+     */
+    public void preload(String uuid) {
+        long now = now();
+        purge(now);
+
+        CompletableFuture<UserProfile> future = ChatDecorator.getInstance().getAsyncDb().selectUserProfile(uuid);
+        entries.put(uuid, new Entry(future, now + EXPIRE_TIME));
+    }
+
+    /**
+     * Take the staged profile load
+     * <p>
+     * If the profile is not staged or expired, the load starts now.
+     *
+     * @param uuid user uuid
+     * @return future of the profile, already completed in the usual case
+     */
+    public CompletableFuture<UserProfile> take(String uuid) {
+        Entry entry = entries.remove(uuid);
+        if (entry != null && entry.expireAt - now() >= 0)
+            return entry.future;
+
+        return ChatDecorator.getInstance().getAsyncDb().selectUserProfile(uuid);
+    }
+
+    /**
+     * Get staged profile count
+     *
+     * @return staged profile count
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -2,36 +2,52 @@ package me.htna.project.chatdecorator.commands;
 
 import me.htna.project.chatdecorator.ChatDecorator;
 import me.htna.project.chatdecorator.Config;
+import me.htna.project.chatdecorator.database.AsyncDatabase;
+import me.htna.project.chatdecorator.database.ChatLogCursor;
 import me.htna.project.chatdecorator.database.entities.CHATLOG;
 import me.htna.project.chatdecorator.placeholderHandlers.BasePlaceholderHandler;
+import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandException;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.command.args.CommandContext;
 import org.spongepowered.api.command.args.GenericArguments;
 import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.service.pagination.PaginationService;
 import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.action.TextActions;
+import org.spongepowered.api.text.format.TextColors;
 import org.spongepowered.api.text.serializer.TextSerializers;
 
-import java.sql.SQLException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class ChatLogCommand extends BaseCommand {
 
     public final static String SUBPERMISSION = "log";
     public final static String[] ALIAS = {"log"};
 
+    /**
+     * Default logs per page
+     */
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * Maximum logs per page, a page fits in the chat window
+     */
+    private static final int MAX_PAGE_SIZE = 15;
+
     public ChatLogCommand() {
-        super(ALIAS, "대상 유저의 채팅 로그를 출력합니다.", SUBPERMISSION);
+        super(ALIAS, "대상 유저의 채팅 로그를 페이지 단위로 출력합니다.", SUBPERMISSION);
 
         elementList = new ArrayList<>();
         elementList.add(GenericArguments.onlyOne(GenericArguments.player(Text.of("player"))));
         elementList.add(GenericArguments.dateTime(Text.of("datetime")));
-        elementList.add(GenericArguments.integer(Text.of("take")));
+        elementList.add(GenericArguments.optional(GenericArguments.integer(Text.of("take"))));
     }
 
     private String convertReasonToFormatString(CHATLOG.Reason reason) {
@@ -51,42 +67,94 @@ public class ChatLogCommand extends BaseCommand {
         return reason.toString();
     }
 
+    /**
+     * Make a line of the chat log
+     *
+     * @param log    {@link CHATLOG}
+     * @param format datetime format
+     * @return {@link Text}
+     */
+    private Text makeLine(CHATLOG log, String format) {
+        StringBuilder sb = new StringBuilder()
+                .append("[&2").append(BasePlaceholderHandler.getDateTimeString(log.getDatetime(), format)).append("&r] ")
+                .append(log.getContent()).append(" >> ").append(convertReasonToFormatString(log.getResult()));
+
+        return TextSerializers.FORMATTING_CODE.deserialize(sb.toString());
+    }
+
+    /**
+     * Load a page off the server thread and send it to the command source
+     *
+     * @param src      {@link CommandSource}
+     * @param uuid     target uuid
+     * @param name     target name
+     * @param cursor   page cursor
+     * @param forward  true to load the page after the cursor, false to load the page before the cursor
+     * @param pageSize logs per page
+     */
+    private void loadPage(CommandSource src, String uuid, String name, ChatLogCursor cursor, boolean forward, int pageSize) {
+        AsyncDatabase asyncDb = ChatDecorator.getInstance().getAsyncDb();
+        CompletableFuture<List<CHATLOG>> page = forward
+                ? asyncDb.selectChatLogAfter(uuid, cursor, pageSize)
+                : asyncDb.selectChatLogBefore(uuid, cursor, pageSize);
+
+        page.whenCompleteAsync((logs, ex) -> {
+            if (ex != null)
+                src.sendMessage(Text.of("채팅 로그를 불러오지 못했습니다."));
+            else if (logs.isEmpty())
+                src.sendMessage(Text.of(forward ? "다음 채팅 로그가 없습니다." : "이전 채팅 로그가 없습니다."));
+            else
+                sendPage(src, uuid, name, logs, pageSize);
+        }, asyncDb.getSyncExecutor());
+    }
+
+    /**
+     * Send a page with the previous and next buttons
+     * <p>
+     * The buttons load the page before the first log and after the last log of this page.
+     *
+     * @param src      {@link CommandSource}
+     * @param uuid     target uuid
+     * @param name     target name
+     * @param logs     logs of the page
+     * @param pageSize logs per page
+     */
+    private void sendPage(CommandSource src, String uuid, String name, List<CHATLOG> logs, int pageSize) {
+        String format = Config.getInstance().getDateTimeFormatter();
+        List<Text> lines = new ArrayList<>(logs.size());
+        for (CHATLOG log : logs)
+            lines.add(makeLine(log, format));
+
+        ChatLogCursor first = ChatLogCursor.of(logs.get(0));
+        ChatLogCursor last = ChatLogCursor.of(logs.get(logs.size() - 1));
+        Text prev = Text.builder("[◀ 이전]").color(TextColors.AQUA)
+                .onClick(TextActions.executeCallback(x -> loadPage(x, uuid, name, first, false, pageSize))).build();
+        Text next = Text.builder("[다음 ▶]").color(TextColors.AQUA)
+                .onClick(TextActions.executeCallback(x -> loadPage(x, uuid, name, last, true, pageSize))).build();
+
+        Sponge.getServiceManager().provideUnchecked(PaginationService.class).builder()
+                .title(Text.of("CHAT LOG " + name))
+                .padding(Text.of("="))
+                .contents(lines)
+                .footer(Text.of(prev, "  ", next))
+                .sendTo(src);
+    }
+
     @Override
     public CommandResult execute(CommandSource src, CommandContext args) throws CommandException {
         String sourceUuid = getCommandSourceUuid(src);
         Player player = args.<Player>getOne("player").get();
         LocalDateTime datetime = args.<LocalDateTime>getOne("datetime").get();
-        int take = args.<Integer>getOne("take").get();
+        int pageSize = Math.max(1, Math.min(args.<Integer>getOne("take").orElse(PAGE_SIZE), MAX_PAGE_SIZE));
 
         ChatDecorator.getInstance().getLogger().info(
                 new StringBuilder().append("Execute chatlog command: ")
                         .append(sourceUuid).append(" -> ").append(player.getUniqueId())
-                        .append(", ").append(datetime).append(", ").append(take).toString());
+                        .append(", ").append(datetime).append(", ").append(pageSize).toString());
 
         Instant instant = datetime.toInstant(OffsetDateTime.now().getOffset());
-        List<CHATLOG> logs;
-        try {
-            logs = ChatDecorator.getInstance().getDb().selectChatLog(player.getUniqueId().toString(), instant, take);
-        } catch (SQLException e) {
-            ChatDecorator.getInstance().getLogger().error("ChtLogCommand execute failed: " + e);
-            e.printStackTrace();
-            return CommandResult.empty();
-        }
-
-        String format = Config.getInstance().getDateTimeFormatter();
-        int count = 0;
-        src.sendMessage(Text.of("========== CHAT LOG =========="));
-        for (CHATLOG log : logs) {
-            StringBuilder sb = new StringBuilder()
-                    .append("&c#").append(++count).append("&r ")
-                    .append("[&2").append(BasePlaceholderHandler.getDateTimeString(log.getDatetime(), format)).append("&r] ")
-                    .append(log.getContent()).append(" >> ").append(convertReasonToFormatString(log.getResult()));
-
-            Text text = TextSerializers.FORMATTING_CODE.deserialize(sb.toString());
-            src.sendMessage(text);
-        }
-        src.sendMessage(Text.of("============= END ============"));
+        loadPage(src, player.getUniqueId().toString(), player.getName(), ChatLogCursor.from(instant), true, pageSize);
 
-        return CommandResult.successCount(count);
+        return CommandResult.success();
     }
 }
@@ -0,0 +1,116 @@
+package me.htna.project.chatdecorator.commands;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import me.htna.project.chatdecorator.database.ChatLogExporter;
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+import me.htna.project.chatdecorator.placeholderHandlers.BasePlaceholderHandler;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.GenericArguments;
+import org.spongepowered.api.entity.living.player.User;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.text.Text;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Export chat logs to a file
+ * <p>
+ * /cd export &lt;ndjson|csv&gt; [-p player] [-s since] [-u until] [-r reason] [-z]
+ */
+public class ExportCommand extends BaseCommand {
+
+    public final static String SUBPERMISSION = "export";
+    public final static String[] ALIAS = {"export"};
+
+    private static final DateTimeFormatter FILE_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /**
+     * Only one export runs at once
+     */
+    private final AtomicBoolean exporting;
+
+    public ExportCommand() {
+        super(ALIAS, "채팅 로그를 파일로 내보냅니다. -p 유저, -s 시작, -u 끝, -r 결과, -z 압축", SUBPERMISSION);
+
+        exporting = new AtomicBoolean();
+        elementList = new ArrayList<>();
+        elementList.add(GenericArguments.flags()
+                .valueFlag(GenericArguments.user(Text.of("player")), "p")
+                .valueFlag(GenericArguments.dateTime(Text.of("since")), "s")
+                .valueFlag(GenericArguments.dateTime(Text.of("until")), "u")
+                .valueFlag(GenericArguments.enumValue(Text.of("reason"), CHATLOG.Reason.class), "r")
+                .flag("z")
+                .buildWith(GenericArguments.enumValue(Text.of("format"), ChatLogExporter.Format.class)));
+    }
+
+    /**
+     * Send message to the command source on the server thread
+     *
+     * @param src     {@link CommandSource}
+     * @param message message
+     */
+    private void sendSync(CommandSource src, String message) {
+        Task.builder().execute(() -> src.sendMessage(Text.of(message)))
+                .name("Chat log export report").submit(ChatDecorator.getInstance().getPlugin());
+    }
+
+    @Override
+    public CommandResult execute(CommandSource src, CommandContext args) throws CommandException {
+        String sourceUuid = getCommandSourceUuid(src);
+        ChatLogExporter.Format format = args.<ChatLogExporter.Format>getOne("format").get();
+        String uuid = args.<User>getOne("player").map(x -> x.getUniqueId().toString()).orElse(null);
+        Instant since = args.<LocalDateTime>getOne("since")
+                .map(x -> x.toInstant(OffsetDateTime.now().getOffset())).orElse(Instant.EPOCH);
+        Instant until = args.<LocalDateTime>getOne("until")
+                .map(x -> x.toInstant(OffsetDateTime.now().getOffset())).orElse(Instant.now());
+        CHATLOG.Reason reason = args.<CHATLOG.Reason>getOne("reason").orElse(null);
+        boolean gzip = args.hasAny("z");
+
+        ChatDecorator.getInstance().getLogger().info(
+                new StringBuilder().append("Execute export command: ")
+                        .append(sourceUuid).append(" -> ").append(format)
+                        .append(", ").append(uuid).append(", ").append(since).append(", ").append(until)
+                        .append(", ").append(reason).append(", ").append(gzip).toString());
+
+        if (!exporting.compareAndSet(false, true)) {
+            src.sendMessage(Text.of("이미 채팅 로그를 내보내는 중입니다."));
+            return CommandResult.success();
+        }
+
+        String fileName = "chatlog-" + LocalDateTime.now().format(FILE_NAME_FORMATTER) + "." + format.getExtension() + (gzip ? ".gz" : "");
+        Path path = Paths.get(ChatDecorator.getInstance().getGame().getGameDirectory().toString(), "chatdecorator", "export", fileName);
+        ChatLogExporter exporter = new ChatLogExporter(ChatDecorator.getInstance().getChatLogStore());
+        src.sendMessage(Text.of("채팅 로그를 내보냅니다: " + fileName));
+
+        Task.builder().execute(() -> {
+            try {
+                ChatLogExporter.Result result = exporter.export(path, format, gzip, since, until, uuid, reason);
+                String message = "Export chat log: " + result.getCount() + " logs, " + result.getElapsed() + "ms, "
+                        + BasePlaceholderHandler.formatDecimal(result.getRowsPerSecond(), 0) + " rows/sec -> " + path;
+                ChatDecorator.getInstance().getLogger().info(message);
+                sendSync(src, "채팅 로그 " + result.getCount() + "개를 내보냈습니다. ("
+                        + BasePlaceholderHandler.formatDecimal(result.getRowsPerSecond(), 0) + " rows/sec) " + fileName);
+            } catch (SQLException | IOException e) {
+                ChatDecorator.getInstance().getLogger().error("Chat log export error: " + e);
+                e.printStackTrace();
+                sendSync(src, "채팅 로그를 내보내지 못했습니다.");
+            } finally {
+                exporting.set(false);
+            }
+        }).async().name("Chat log export task").submit(ChatDecorator.getInstance().getPlugin());
+
+        return CommandResult.success();
+    }
+}
@@ -2,6 +2,7 @@ package me.htna.project.chatdecorator.commands;
 
 import me.htna.project.chatdecorator.ChatDecorator;
 import me.htna.project.chatdecorator.Config;
+import me.htna.project.chatdecorator.MuteExpiryScheduler;
 import me.htna.project.chatdecorator.TemplateParser;
 import me.htna.project.chatdecorator.UserManager;
 import me.htna.project.chatdecorator.struct.Message;
@@ -12,9 +13,8 @@ import org.spongepowered.api.command.args.CommandContext;
 import org.spongepowered.api.command.args.GenericArguments;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.text.Text;
-import org.spongepowered.api.text.serializer.TextSerializers;
 
-import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 
@@ -24,10 +24,11 @@ public class MuteCommand extends BaseCommand {
     public final static String[] ALIAS = {"mute"};
 
     public MuteCommand() {
-        super(ALIAS, "유저를 뮤트합니다.", SUBPERMISSION);
+        super(ALIAS, "유저를 뮤트합니다. 기간을 지정하면 기간이 지난 뒤 뮤트가 해제됩니다. ex) 30m, 2h, 1d", SUBPERMISSION);
 
         elementList = new ArrayList<>();
         elementList.add(GenericArguments.onlyOne(GenericArguments.player(Text.of("player"))));
+        elementList.add(GenericArguments.optionalWeak(GenericArguments.duration(Text.of("duration"))));
         elementList.add(GenericArguments.remainingJoinedStrings(Text.of("reason")));
     }
 
@@ -36,28 +37,27 @@ public class MuteCommand extends BaseCommand {
         String sourceUuid = getCommandSourceUuid(src);
         Player player = args.<Player>getOne("player").get();
         String reason = args.<String>getOne("reason").get();
+        Instant now = Instant.now();
+        Instant expire = args.<Duration>getOne("duration").map(now::plus).orElse(null);
 
         String uuid = player.getUniqueId().toString();
 
         ChatDecorator.getInstance().getLogger().info(
                 new StringBuilder().append("Execute mute command: ")
                         .append(sourceUuid).append(" -> ").append(uuid)
-                        .append(" (").append(reason).append(')').toString());
+                        .append(" (").append(reason).append(')')
+                        .append(expire != null ? " until " + expire : "").toString());
 
         boolean result = UserManager.getInstance().muteUser(
                 uuid,
-                sourceUuid, reason);
+                sourceUuid, reason, expire);
         if (result) {
-            try {
-                ChatDecorator.getInstance().getDb().insertMuteInfo(uuid, sourceUuid, Instant.now(), reason);
-            } catch (SQLException e) {
-                ChatDecorator.getInstance().getLogger().error("MuteCommand insert sql failed: " + e);
-                e.printStackTrace();
-            }
+            ChatDecorator.getInstance().getAsyncDb().insertMuteInfo(uuid, sourceUuid, now, reason, expire);
+            if (expire != null)
+                MuteExpiryScheduler.getInstance().schedule(player.getUniqueId(), expire);
             src.sendMessage(Text.of("해당 유저를 뮤트했습니다."));
             Message msg = new Message(player);
-            String formatted = TemplateParser.getInstance().parse(Config.getInstance().getMuteTemplate(), msg);
-            Text text = TextSerializers.FORMATTING_CODE.deserialize(formatted);
+            Text text = TemplateParser.getInstance().parseText(Config.getInstance().getMuteTemplate(), msg);
             player.sendMessage(text);
 
             ChatDecorator.getInstance().getLogger().info("Mute success");
@@ -3,21 +3,21 @@ package me.htna.project.chatdecorator.commands;
 import me.htna.project.chatdecorator.ChatDecorator;
 import me.htna.project.chatdecorator.Config;
 import me.htna.project.chatdecorator.UserManager;
+import me.htna.project.chatdecorator.database.entities.MUTEINFO;
 import me.htna.project.chatdecorator.placeholderHandlers.BasePlaceholderHandler;
 import me.htna.project.chatdecorator.struct.MuteInfo;
-import me.htna.project.chatdecorator.struct.UserInfo;
 import org.spongepowered.api.command.CommandException;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.command.args.CommandContext;
 import org.spongepowered.api.command.args.GenericArguments;
-import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.entity.living.player.User;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.serializer.TextSerializers;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class MuteLogCommand extends BaseCommand {
 
@@ -31,35 +31,28 @@ public class MuteLogCommand extends BaseCommand {
         super(ALIAS, "Unmute user", SUBPERMISSION);
 
         elementList = new ArrayList<>();
-        elementList.add(GenericArguments.onlyOne(GenericArguments.player(Text.of("player"))));
+        elementList.add(GenericArguments.onlyOne(GenericArguments.user(Text.of("player"))));
     }
 
-    @Override
-    public CommandResult execute(CommandSource src, CommandContext args) throws CommandException {
-        String sourceUuid = getCommandSourceUuid(src);
-        Player player = args.<Player>getOne("player").get();
-
-        ChatDecorator.getInstance().getLogger().info(
-                new StringBuilder().append("Execute MuteLog command: ")
-                        .append(sourceUuid).append(" -> ").append(player.getUniqueId())
-                        .toString());
-
+    /**
+     * Send mute logs to the command source
+     *
+     * @param src       {@link CommandSource}
+     * @param muteInfos {@link MUTEINFO} list in IDX order
+     */
+    private void sendMuteLogs(CommandSource src, List<MUTEINFO> muteInfos) {
         UserManager userManager = UserManager.getInstance();
-        Optional<UserInfo> userInfo = userManager.findUser(player);
-        if (!userInfo.isPresent()) {
-            src.sendMessage(Text.of("유저를 찾을 수 없습니다."));
-            return CommandResult.empty();
-        }
-
-        List<MuteInfo> muteInfoList = userInfo.get().getMuteInfoList();
         String datetimeFormat = Config.getInstance().getDateTimeFormatter();
         int count = 0;
         src.sendMessage(Text.of("========== MUTE LOG =========="));
-        for (MuteInfo muteInfo : muteInfoList) {
+        for (MUTEINFO table : muteInfos) {
+            MuteInfo muteInfo = new MuteInfo(table);
             StringBuilder sb = new StringBuilder()
                     .append("&c#").append(++count).append("&r ")
                     .append("[&eM&r] (&9").append(BasePlaceholderHandler.getDateTimeString(muteInfo.getMuteDateTime(), datetimeFormat))
                     .append("&r) (&6").append(userManager.getName(muteInfo.getMuteSourceUuid())).append("&r) : &a").append(muteInfo.getReason()).append("&r");
+            if (muteInfo.getExpireDateTime() != null)
+                sb.append(" ~ (&9").append(BasePlaceholderHandler.getDateTimeString(muteInfo.getExpireDateTime(), datetimeFormat)).append("&r)");
             if (muteInfo.isComplete()) {
                 sb.append(" -> ")
                         .append("[&eU&r] (&9").append(BasePlaceholderHandler.getDateTimeString(muteInfo.getUnmuteDateTime(), datetimeFormat))
@@ -70,7 +63,32 @@ public class MuteLogCommand extends BaseCommand {
             src.sendMessage(text);
         }
         src.sendMessage(Text.of("============= END ============"));
+    }
+
+    @Override
+    public CommandResult execute(CommandSource src, CommandContext args) throws CommandException {
+        String sourceUuid = getCommandSourceUuid(src);
+        User user = args.<User>getOne("player").get();
+
+        ChatDecorator.getInstance().getLogger().info(
+                new StringBuilder().append("Execute MuteLog command: ")
+                        .append(sourceUuid).append(" -> ").append(user.getUniqueId())
+                        .toString());
+
+        // 뮤트 기록은 메모리에 없으므로 DB에서 불러옴
+        String uuid = user.getUniqueId().toString();
+        UserManager.getInstance().loadUser(user.getUniqueId()).thenCompose(userInfo -> userInfo.isPresent()
+                ? ChatDecorator.getInstance().getAsyncDb().selectMuteInfo(uuid)
+                : CompletableFuture.<List<MUTEINFO>>completedFuture(null)
+        ).whenCompleteAsync((muteInfos, ex) -> {
+            if (ex != null)
+                src.sendMessage(Text.of("뮤트 기록을 불러오지 못했습니다."));
+            else if (muteInfos == null)
+                src.sendMessage(Text.of("유저를 찾을 수 없습니다."));
+            else
+                sendMuteLogs(src, muteInfos);
+        }, ChatDecorator.getInstance().getAsyncDb().getSyncExecutor());
 
-        return CommandResult.successCount(count);
+        return CommandResult.success();
     }
 }
@@ -12,7 +12,6 @@ import org.spongepowered.api.command.args.GenericArguments;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.text.Text;
 
-import java.sql.SQLException;
 import java.util.ArrayList;
 
 public class NicknameCommand extends BaseCommand {
@@ -43,12 +42,7 @@ public class NicknameCommand extends BaseCommand {
 
         boolean result = UserManager.getInstance().setNickname(sourceUuid, nickname);
         if (result) {
-            try {
-                ChatDecorator.getInstance().getDb().insertOrUpdateNickname(sourceUuid, nickname);
-            } catch (SQLException e) {
-                ChatDecorator.getInstance().getLogger().error("Nickname command insert sql failed: " + e);
-                e.printStackTrace();
-            }
+            ChatDecorator.getInstance().getAsyncDb().insertOrUpdateNickname(sourceUuid, nickname);
 
             TabDecorationManager.getInstance().addUser((Player) src);
             src.sendMessage(Text.of("닉네임이 변경되었습니다: " + nickname));
@@ -3,6 +3,7 @@ package me.htna.project.chatdecorator.commands;
 import me.htna.project.chatdecorator.ChatDecorator;
 import me.htna.project.chatdecorator.Config;
 import me.htna.project.chatdecorator.TabDecorationManager;
+import me.htna.project.chatdecorator.TemplateParser;
 import org.spongepowered.api.command.CommandException;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.CommandSource;
@@ -23,6 +24,9 @@ public class ReloadCommand extends BaseCommand {
         ChatDecorator.getInstance().getLogger().info("Execute reload command");
         boolean result = Config.getInstance().reload();
         if (result) {
+            // 컴파일된 템플릿 캐시 초기화
+            TemplateParser.getInstance().clearCache();
+
             // tab decoration 리로드
             TabDecorationManager.getInstance().reload();
 
@@ -0,0 +1,99 @@
+package me.htna.project.chatdecorator.commands;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import me.htna.project.chatdecorator.Config;
+import me.htna.project.chatdecorator.UserManager;
+import me.htna.project.chatdecorator.database.ChatLogSearchIndex;
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+import me.htna.project.chatdecorator.placeholderHandlers.BasePlaceholderHandler;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.GenericArguments;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.serializer.TextSerializers;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchCommand extends BaseCommand {
+
+    public final static String SUBPERMISSION = "search";
+    public final static String[] ALIAS = {"search"};
+
+    /**
+     * Maximum hits of a search
+     */
+    private static final int SEARCH_LIMIT = 10;
+
+    public SearchCommand() {
+        super(ALIAS, "채팅 로그에서 검색어를 찾습니다. 여러 단어는 \"\"로 묶습니다.", SUBPERMISSION);
+
+        elementList = new ArrayList<>();
+        elementList.add(GenericArguments.string(Text.of("terms")));
+        elementList.add(GenericArguments.optional(GenericArguments.dateTime(Text.of("since"))));
+    }
+
+    /**
+     * Send search hits to the command source
+     *
+     * @param src  {@link CommandSource}
+     * @param hits {@link ChatLogSearchIndex.Hit} list
+     */
+    private void sendHits(CommandSource src, List<ChatLogSearchIndex.Hit> hits) {
+        String format = Config.getInstance().getDateTimeFormatter();
+        int count = 0;
+        src.sendMessage(Text.of("======== SEARCH RESULT ======="));
+        for (ChatLogSearchIndex.Hit hit : hits) {
+            CHATLOG log = hit.getLog();
+            String name = UserManager.getInstance().getName(log.getUuid());
+            StringBuilder sb = new StringBuilder()
+                    .append("&c#").append(++count).append("&r ")
+                    .append("[&2").append(BasePlaceholderHandler.getDateTimeString(log.getDatetime(), format)).append("&r] ")
+                    .append("&b").append(name == null ? log.getUuid() : name).append("&r: ")
+                    .append(log.getContent())
+                    .append(" &7(").append(BasePlaceholderHandler.formatDecimal(hit.getScore(), 2)).append(")");
+
+            Text text = TextSerializers.FORMATTING_CODE.deserialize(sb.toString());
+            src.sendMessage(text);
+        }
+        if (hits.isEmpty())
+            src.sendMessage(Text.of("검색 결과가 없습니다."));
+        src.sendMessage(Text.of("============= END ============"));
+    }
+
+    @Override
+    public CommandResult execute(CommandSource src, CommandContext args) throws CommandException {
+        String sourceUuid = getCommandSourceUuid(src);
+        String terms = args.<String>getOne("terms").get();
+        Instant since = args.<LocalDateTime>getOne("since")
+                .map(x -> x.toInstant(OffsetDateTime.now().getOffset())).orElse(null);
+
+        ChatDecorator.getInstance().getLogger().info(
+                new StringBuilder().append("Execute search command: ")
+                        .append(sourceUuid).append(" -> ").append(terms)
+                        .append(", ").append(since).toString());
+
+        ChatLogSearchIndex index = ChatDecorator.getInstance().getChatLogSearchIndex();
+        if (index == null) {
+            src.sendMessage(Text.of("채팅 로그 검색이 비활성화되어 있습니다."));
+            return CommandResult.success();
+        }
+        if (!index.isReady())
+            src.sendMessage(Text.of("검색 색인을 만드는 중입니다. 일부 로그만 검색됩니다."));
+
+        ChatDecorator.getInstance().getAsyncDb().supply("Search chat log", () -> index.search(terms, since, SEARCH_LIMIT))
+                .whenCompleteAsync((hits, ex) -> {
+                    if (ex != null)
+                        src.sendMessage(Text.of("채팅 로그를 검색하지 못했습니다."));
+                    else
+                        sendHits(src, hits);
+                }, ChatDecorator.getInstance().getAsyncDb().getSyncExecutor());
+
+        return CommandResult.success();
+    }
+}
@@ -0,0 +1,93 @@
+package me.htna.project.chatdecorator.commands;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import me.htna.project.chatdecorator.MuteExpiryScheduler;
+import me.htna.project.chatdecorator.UserManager;
+import me.htna.project.chatdecorator.ChatLogRetentionManager;
+import me.htna.project.chatdecorator.database.AsyncDatabase;
+import me.htna.project.chatdecorator.database.ChatLogSearchIndex;
+import me.htna.project.chatdecorator.database.ChatLogStore;
+import me.htna.project.chatdecorator.database.ChatLogWriter;
+import me.htna.project.chatdecorator.database.ConnectionPool;
+import me.htna.project.chatdecorator.database.SegmentChatLogStore;
+import me.htna.project.chatdecorator.placeholderHandlers.BasePlaceholderHandler;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.serializer.TextSerializers;
+
+public class StatusCommand extends BaseCommand {
+
+    public final static String SUBPERMISSION = "status";
+    public final static String[] ALIAS = {"status"};
+
+    public StatusCommand() {
+        super(ALIAS, "ChatDecorator 상태를 출력합니다.", SUBPERMISSION);
+    }
+
+    /**
+     * Send "name: value" line
+     *
+     * @param src   {@link CommandSource}
+     * @param name  item name
+     * @param value item value
+     */
+    private void sendItem(CommandSource src, String name, Object value) {
+        String line = new StringBuilder().append("&7").append(name).append(": &r").append(value).toString();
+        src.sendMessage(TextSerializers.FORMATTING_CODE.deserialize(line));
+    }
+
+    @Override
+    public CommandResult execute(CommandSource src, CommandContext args) throws CommandException {
+        ChatDecorator.getInstance().getLogger().info("Execute status command");
+
+        src.sendMessage(Text.of("=========== STATUS ==========="));
+
+        ConnectionPool pool = ChatDecorator.getInstance().getDb().getPool();
+        if (pool != null) {
+            sendItem(src, "DB connection", pool.getIdleCount() + " idle / " + pool.getSize());
+            sendItem(src, "DB borrow", pool.getBorrowCount() + ", waited " + pool.getWaitCount());
+        }
+
+        AsyncDatabase asyncDb = ChatDecorator.getInstance().getAsyncDb();
+        if (asyncDb != null) {
+            sendItem(src, "DB queue", asyncDb.getQueueDepth() + ", running " + asyncDb.getActiveCount());
+            sendItem(src, "DB completed", asyncDb.getCompletedCount());
+        }
+
+        UserManager userManager = UserManager.getInstance();
+        sendItem(src, "Users", userManager.getUserCount() + " online, " + userManager.getOfflineUserCount() + " offline cached");
+        sendItem(src, "Name cache", userManager.getNameCacheSize() + " names, hit " + userManager.getNameHitCount()
+                + ", miss " + userManager.getNameMissCount());
+        sendItem(src, "Timed mutes", MuteExpiryScheduler.getInstance().getPendingCount());
+
+        ChatLogWriter writer = ChatDecorator.getInstance().getChatLogWriter();
+        if (writer != null) {
+            sendItem(src, "Chat log queue", writer.getQueueDepth() + " / " + writer.getQueueCapacity());
+            sendItem(src, "Chat log batch", "last " + writer.getLastBatchSize()
+                    + ", avg " + BasePlaceholderHandler.formatDecimal(writer.getAverageBatchSize(), 1)
+                    + ", max " + writer.getMaxBatchSize() + " / " + writer.getBatchSize());
+            sendItem(src, "Chat log written", writer.getWrittenCount() + " rows, " + writer.getBatchCount() + " batches");
+            sendItem(src, "Chat log dropped", writer.getOverflowCount());
+            sendItem(src, "Chat log failed", writer.getFailedCount());
+        }
+
+        ChatLogStore store = ChatDecorator.getInstance().getChatLogStore();
+        if (store instanceof SegmentChatLogStore)
+            sendItem(src, "Chat log segments", ((SegmentChatLogStore) store).getSegmentCount());
+
+        ChatLogSearchIndex searchIndex = ChatDecorator.getInstance().getChatLogSearchIndex();
+        if (searchIndex != null)
+            sendItem(src, "Chat log search index", searchIndex.getDocCount() + " logs, " + searchIndex.getTokenCount() + " tokens"
+                    + (searchIndex.isReady() ? "" : ", building"));
+
+        ChatLogRetentionManager retention = ChatLogRetentionManager.getInstance();
+        if (retention.getLastPurge() != null)
+            sendItem(src, "Chat log purge", retention.getLastPurge() + ", dropped " + retention.getLastDropCount());
+
+        src.sendMessage(Text.of("============= END ============"));
+        return CommandResult.success();
+    }
+}
@@ -2,6 +2,7 @@ package me.htna.project.chatdecorator.commands;
 
 import me.htna.project.chatdecorator.ChatDecorator;
 import me.htna.project.chatdecorator.Config;
+import me.htna.project.chatdecorator.MuteExpiryScheduler;
 import me.htna.project.chatdecorator.TemplateParser;
 import me.htna.project.chatdecorator.UserManager;
 import me.htna.project.chatdecorator.struct.Message;
@@ -13,9 +14,7 @@ import org.spongepowered.api.command.args.GenericArguments;
 import org.spongepowered.api.command.source.ConsoleSource;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.text.Text;
-import org.spongepowered.api.text.serializer.TextSerializers;
 
-import java.sql.SQLException;
 import java.time.Instant;
 import java.util.ArrayList;
 
@@ -46,16 +45,11 @@ public class UnmuteCommand extends BaseCommand{
         boolean result = UserManager.getInstance().unmuteUser(
                 uuid, sourceUuid);
         if (result) {
-            try {
-                ChatDecorator.getInstance().getDb().unmute(uuid, sourceUuid, Instant.now());
-            } catch (SQLException e) {
-                ChatDecorator.getInstance().getLogger().error("MuteCommand insert sql failed: " + e);
-                e.printStackTrace();
-            }
+            MuteExpiryScheduler.getInstance().cancel(player.getUniqueId());
+            ChatDecorator.getInstance().getAsyncDb().unmute(uuid, sourceUuid, Instant.now());
             src.sendMessage(Text.of("해당 유저의 뮤트를 해제했습니다."));
             Message msg = new Message(player);
-            String formatted = TemplateParser.getInstance().parse(Config.getInstance().getUnmuteTemplate(), msg);
-            Text text = TextSerializers.FORMATTING_CODE.deserialize(formatted);
+            Text text = TemplateParser.getInstance().parseText(Config.getInstance().getUnmuteTemplate(), msg);
             player.sendMessage(text);
 
             ChatDecorator.getInstance().getLogger().info("Unmute success");
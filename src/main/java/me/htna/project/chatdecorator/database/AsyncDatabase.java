@@ -0,0 +1,344 @@
+package me.htna.project.chatdecorator.database;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+import me.htna.project.chatdecorator.database.entities.MUTEINFO;
+import me.htna.project.chatdecorator.database.entities.NICKNAME;
+import me.htna.project.chatdecorator.database.entities.USERINFO;
+import org.slf4j.Logger;
+import org.spongepowered.api.Sponge;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous facade of {@link H2Embedded}
+ * <p>
+ * Every operation runs on a bounded database executor and returns a {@link CompletableFuture}.
+ * Reads run on a thread pool, while writes run on one writer thread in the submitted order,
+ * so dependent writes, ex) mute then unmute, or insert user then update playtime, are never reordered.
+ * Continuations which use the Sponge API must run on {@link #getSyncExecutor()}, the server thread.
+ * Failed operations are logged here, and their futures complete exceptionally.
+ */
+public class AsyncDatabase {
+
+    /**
+     * Maximum wait for the queued operations on shutdown (unit: millisecond)
+     */
+    private static final long SHUTDOWN_TIMEOUT = 10000;
+
+    /**
+     * Database operation
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    public interface SqlSupplier<T> {
+        T get() throws SQLException;
+    }
+
+    /**
+     * Database operation without result
+     */
+    @FunctionalInterface
+    public interface SqlRunnable {
+        void run() throws SQLException;
+    }
+
+    private final Logger logger;
+
+    private final H2Embedded db;
+
+    private final ChatLogStore chatLogStore;
+
+    /**
+     * Read executor
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Write executor, one thread keeps the submitted order
+     */
+    private final ThreadPoolExecutor writeExecutor;
+
+    private final Executor syncExecutor;
+
+    /**
+     * CTor
+     *
+     * @param db            {@link H2Embedded}
+     * @param chatLogStore  chat log backend
+     * @param threads       database read thread count, at most the connection pool size minus the writer is useful
+     * @param queueCapacity maximum queued operations of each executor
+     */
+    public AsyncDatabase(H2Embedded db, ChatLogStore chatLogStore, int threads, int queueCapacity) {
+        this.logger = ChatDecorator.getInstance().getLogger();
+        this.db = db;
+        this.chatLogStore = chatLogStore;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        int size = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "ChatDecorator database #" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.writeExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "ChatDecorator database writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.writeExecutor.allowCoreThreadTimeOut(true);
+        this.syncExecutor = Sponge.getScheduler().createSyncExecutor(ChatDecorator.getInstance());
+    }
+
+    /**
+     * Get executor of the server thread
+     *
+     * @return {@link Executor} which runs tasks on the next server tick
+     */
+    public Executor getSyncExecutor() {
+        return syncExecutor;
+    }
+
+    /**
+     * Run read operation on the database executor
+     *
+     * @param name      operation name for the log
+     * @param operation operation
+     * @param <T>       result type
+     * @return future of the result
+     */
+    public <T> CompletableFuture<T> supply(String name, SqlSupplier<T> operation) {
+        return supply(name, operation, executor);
+    }
+
+    /**
+     * Run write operation on the writer thread, after the writes submitted before
+     *
+     * @param name      operation name for the log
+     * @param operation operation
+     * @param <T>       result type
+     * @return future of the result
+     */
+    public <T> CompletableFuture<T> supplyWrite(String name, SqlSupplier<T> operation) {
+        return supply(name, operation, writeExecutor);
+    }
+
+    /**
+     * Run operation on the executor
+     *
+     * @param name      operation name for the log
+     * @param operation operation
+     * @param executor  read or write executor
+     * @param <T>       result type
+     * @return future of the result
+     */
+    private <T> CompletableFuture<T> supply(String name, SqlSupplier<T> operation, ThreadPoolExecutor executor) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return operation.get();
+                } catch (SQLException e) {
+                    logger.error(name + " failed: " + e);
+                    e.printStackTrace();
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            logger.error(name + " rejected, database queue is full");
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * Run write operation without result on the writer thread, after the writes submitted before
+     *
+     * @param name      operation name for the log
+     * @param operation operation
+     * @return future of the completion
+     */
+    public CompletableFuture<Void> runWrite(String name, SqlRunnable operation) {
+        return supplyWrite(name, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Stop accepting operations and wait for the queued ones
+     */
+    public void shutdown() {
+        executor.shutdown();
+        writeExecutor.shutdown();
+        try {
+            long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT;
+            if (!writeExecutor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS))
+                logger.warn("Database writer did not stop in " + SHUTDOWN_TIMEOUT + "ms, pending: " + writeExecutor.getQueue().size());
+            long remain = Math.max(0, deadline - System.currentTimeMillis());
+            if (!executor.awaitTermination(remain, TimeUnit.MILLISECONDS))
+                logger.warn("Database executor did not stop in " + SHUTDOWN_TIMEOUT + "ms, pending: " + executor.getQueue().size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get queued operation count, reads and writes
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size() + writeExecutor.getQueue().size();
+    }
+
+    /**
+     * Get running operation count, reads and writes
+     *
+     * @return active thread count
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount() + writeExecutor.getActiveCount();
+    }
+
+    /**
+     * Get completed operation count, reads and writes
+     *
+     * @return completed count
+     */
+    public long getCompletedCount() {
+        return executor.getCompletedTaskCount() + writeExecutor.getCompletedTaskCount();
+    }
+
+    /**
+     * @see H2Embedded#insertOrUpdateNickname(String, String)
+     */
+    public CompletableFuture<Void> insertOrUpdateNickname(String uuid, String nickname) {
+        return runWrite("Insert or update nickname", () -> db.insertOrUpdateNickname(uuid, nickname));
+    }
+
+    /**
+     * @see H2Embedded#selectNickname(String)
+     */
+    public CompletableFuture<Optional<NICKNAME>> selectNickname(String uuid) {
+        return supply("Select nickname", () -> db.selectNickname(uuid));
+    }
+
+    /**
+     * @see H2Embedded#insertMuteInfo(String, String, Instant, String, Instant)
+     */
+    public CompletableFuture<Void> insertMuteInfo(String uuid, String sourceUuid, Instant mute_datetime, String reason, Instant expire_datetime) {
+        return runWrite("Insert mute info", () -> db.insertMuteInfo(uuid, sourceUuid, mute_datetime, reason, expire_datetime));
+    }
+
+    /**
+     * @see H2Embedded#unmute(String, String, Instant)
+     */
+    public CompletableFuture<Void> unmute(String uuid, String sourceUuid, Instant unmute_datetime) {
+        return runWrite("Unmute", () -> db.unmute(uuid, sourceUuid, unmute_datetime));
+    }
+
+    /**
+     * @see H2Embedded#expireMute(String, String, Instant)
+     */
+    public CompletableFuture<Integer> expireMute(String uuid, String sourceUuid, Instant now) {
+        return supplyWrite("Expire mute", () -> db.expireMute(uuid, sourceUuid, now));
+    }
+
+    /**
+     * @see H2Embedded#selectActiveTimedMutes()
+     */
+    public CompletableFuture<List<MUTEINFO>> selectActiveTimedMutes() {
+        return supply("Select active timed mutes", () -> db.selectActiveTimedMutes());
+    }
+
+    /**
+     * @see H2Embedded#selectMuteInfo(String)
+     */
+    public CompletableFuture<List<MUTEINFO>> selectMuteInfo(String uuid) {
+        return supply("Select mute info", () -> db.selectMuteInfo(uuid));
+    }
+
+    /**
+     * @see ChatLogStore#selectChatLog(String, Instant, int)
+     */
+    public CompletableFuture<List<CHATLOG>> selectChatLog(String uuid, Instant instant, int take) {
+        return supply("Select chat log", () -> chatLogStore.selectChatLog(uuid, instant, take));
+    }
+
+    /**
+     * @see ChatLogStore#selectChatLogAfter(String, ChatLogCursor, int)
+     */
+    public CompletableFuture<List<CHATLOG>> selectChatLogAfter(String uuid, ChatLogCursor cursor, int take) {
+        return supply("Select chat log page", () -> chatLogStore.selectChatLogAfter(uuid, cursor, take));
+    }
+
+    /**
+     * @see ChatLogStore#selectChatLogBefore(String, ChatLogCursor, int)
+     */
+    public CompletableFuture<List<CHATLOG>> selectChatLogBefore(String uuid, ChatLogCursor cursor, int take) {
+        return supply("Select chat log page", () -> chatLogStore.selectChatLogBefore(uuid, cursor, take));
+    }
+
+    /**
+     * @see H2Embedded#selectUserProfile(String)
+     */
+    public CompletableFuture<UserProfile> selectUserProfile(String uuid) {
+        return supply("Select user profile", () -> db.selectUserProfile(uuid));
+    }
+
+    /**
+     * @see H2Embedded#selectUserInfo(String)
+     */
+    public CompletableFuture<Optional<USERINFO>> selectUserInfo(String uuid) {
+        return supply("Select user info", () -> db.selectUserInfo(uuid));
+    }
+
+    /**
+     * @see H2Embedded#insertUserInfo(String, Instant, Instant)
+     */
+    public CompletableFuture<Void> insertUserInfo(String uuid, Instant join, Instant last) {
+        return runWrite("Insert user info", () -> db.insertUserInfo(uuid, join, last));
+    }
+
+    /**
+     * @see H2Embedded#updateUserInfo(String, Instant)
+     */
+    public CompletableFuture<Void> updateUserInfo(String uuid, Instant last) {
+        return runWrite("Update user info", () -> db.updateUserInfo(uuid, last));
+    }
+
+    /**
+     * @see H2Embedded#updateUserPlaytime(String, long)
+     */
+    public CompletableFuture<Void> updateUserPlaytime(String uuid, long playtime) {
+        return runWrite("Update user playtime", () -> db.updateUserPlaytime(uuid, playtime));
+    }
+
+    /**
+     * Update playtime of the users at once
+     *
+     * @see H2Embedded#updateUserPlaytimes(Map)
+     */
+    public CompletableFuture<Void> updateUserPlaytimes(Map<String, Long> playtimes) {
+        return runWrite("Update user playtimes", () -> db.updateUserPlaytimes(playtimes));
+    }
+}
@@ -0,0 +1,55 @@
+package me.htna.project.chatdecorator.database;
+
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+
+import java.time.Instant;
+
+/**
+ * Keyset pagination cursor of the chat logs
+ * <p>
+ * Logs are ordered by (datetime, id), so a page is read from the cursor without OFFSET.
+ */
+public class ChatLogCursor {
+
+    private final Instant datetime;
+    private final long id;
+
+    /**
+     * CTor
+     *
+     * @param datetime log datetime
+     * @param id       log id
+     */
+    public ChatLogCursor(Instant datetime, long id) {
+        this.datetime = datetime;
+        this.id = id;
+    }
+
+    /**
+     * Cursor before every log at or after the datetime
+     *
+     * @param datetime start datetime
+     * @return {@link ChatLogCursor}
+     */
+    public static ChatLogCursor from(Instant datetime) {
+        return new ChatLogCursor(datetime, Long.MIN_VALUE);
+    }
+
+    /**
+     * Cursor of the log
+     *
+     * @param log {@link CHATLOG}
+     * @return {@link ChatLogCursor}
+     */
+    public static ChatLogCursor of(CHATLOG log) {
+        return new ChatLogCursor(log.getDatetime(), log.getId());
+    }
+
+    public Instant getDatetime() {
+        return datetime;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
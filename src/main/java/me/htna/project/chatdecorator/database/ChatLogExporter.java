@@ -0,0 +1,221 @@
+package me.htna.project.chatdecorator.database;
+
+import lombok.Getter;
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Chat log exporter
+ * <p>
+ * Streams the chat logs of the {@link ChatLogStore} into a NDJSON or CSV file, optionally gzip compressed.
+ * Logs are written as they are read, so the memory use does not depend on the exported log count.
+ * The file is written under a temporary name and renamed when completed.
+ */
+public class ChatLogExporter {
+
+    /**
+     * Write buffer size (unit: byte)
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Export file format
+     */
+    public enum Format {
+        NDJSON("ndjson"),
+        CSV("csv");
+
+        @Getter
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * Export result
+     */
+    public static class Result {
+        @Getter
+        private final Path path;
+
+        @Getter
+        private final long count;
+
+        /**
+         * Elapsed time (unit: millisecond)
+         */
+        @Getter
+        private final long elapsed;
+
+        Result(Path path, long count, long elapsed) {
+            this.path = path;
+            this.count = count;
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * Get exported logs per second
+         *
+         * @return rows/sec
+         */
+        public double getRowsPerSecond() {
+            return count * 1000.0 / Math.max(elapsed, 1);
+        }
+    }
+
+    private final ChatLogStore store;
+
+    /**
+     * CTor
+     *
+     * @param store {@link ChatLogStore} to export
+     */
+    public ChatLogExporter(ChatLogStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Export the chat logs matching the filter
+     * <p>
+     * Runs for a while on a large store, call it off the server thread.
+     *
+     * @param path   export file path
+     * @param format {@link Format}
+     * @param gzip   true to compress the file
+     * @param since  period start, inclusive
+     * @param until  period end, exclusive
+     * @param uuid   Sender uuid, null for every user
+     * @param reason chat result, null for every result
+     * @return {@link Result}
+     * @throws SQLException read failed
+     * @throws IOException  write failed
+     */
+    public Result export(Path path, Format format, boolean gzip, Instant since, Instant until,
+                         String uuid, CHATLOG.Reason reason) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        long[] count = new long[1];
+        Path temp = path.resolveSibling(path.getFileName() + ".part");
+        Files.createDirectories(path.toAbsolutePath().getParent());
+
+        try {
+            OutputStream out = Files.newOutputStream(temp);
+            if (gzip)
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                if (format == Format.CSV)
+                    writer.write("uuid,datetime,content,result\n");
+
+                store.scanChatLog(since, until, uuid, reason, log -> {
+                    try {
+                        if (format == Format.CSV)
+                            writeCsv(writer, log);
+                        else
+                            writeJson(writer, log);
+                        count[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        return new Result(path, count[0], System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Write a log as a JSON line
+     *
+     * @param writer {@link Writer}
+     * @param log    {@link CHATLOG}
+     * @throws IOException write failed
+     */
+    private static void writeJson(Writer writer, CHATLOG log) throws IOException {
+        writer.write("{\"uuid\":\"");
+        writer.write(log.getUuid());
+        writer.write("\",\"datetime\":\"");
+        writer.write(log.getDatetime().toString());
+        writer.write("\",\"content\":\"");
+        for (int i = 0; i < log.getContent().length(); i++) {
+            char c = log.getContent().charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        writer.write(String.format("\\u%04x", (int) c));
+                    else
+                        writer.write(c);
+            }
+        }
+        writer.write("\",\"result\":\"");
+        writer.write(log.getResult().name());
+        writer.write("\"}\n");
+    }
+
+    /**
+     * Write a log as a CSV row, RFC 4180 quoting
+     *
+     * @param writer {@link Writer}
+     * @param log    {@link CHATLOG}
+     * @throws IOException write failed
+     */
+    private static void writeCsv(Writer writer, CHATLOG log) throws IOException {
+        writer.write(log.getUuid());
+        writer.write(',');
+        writer.write(log.getDatetime().toString());
+        writer.write(',');
+
+        String content = log.getContent();
+        boolean quote = false;
+        for (int i = 0; i < content.length() && !quote; i++) {
+            char c = content.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote) {
+            writer.write('"');
+            writer.write(content.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(content);
+        }
+
+        writer.write(',');
+        writer.write(log.getResult().name());
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,360 @@
+package me.htna.project.chatdecorator.database;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time partitioned chat log tables
+ * <p>
+ * Chat logs are stored in CHATLOG_yyyyMMdd tables, one table per partition period starting at that date.
+ * A table holds only the rows at or after its start date, so the rows of a table are older than
+ * the start of the next table, and a whole table is dropped when the next one starts before the retention cutoff.
+ * <p>
+ * The partition period used since each day is recorded in {@link #PERIOD_TABLE}. When the configured period changes,
+ * the new period starts at the end of the current partition, so the tables of the old and new periods never overlap.
+ * <p>
+ * CHATLOG_LEGACY is the single table of the old schema. It is read as the first partition
+ * and dropped when its newest row is older than the cutoff.
+ */
+public class ChatLogPartitions {
+
+    public static final String TABLE_PREFIX = "CHATLOG_";
+    public static final String LEGACY_TABLE = "CHATLOG_LEGACY";
+    public static final String PERIOD_TABLE = "PARTITION_PERIOD";
+
+    private static final DateTimeFormatter TABLE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * Chat log partition table
+     */
+    public static class Partition implements Comparable<Partition> {
+        private final String table;
+        private final Instant start;
+
+        Partition(String table, Instant start) {
+            this.table = table;
+            this.start = start;
+        }
+
+        /**
+         * Get table name
+         *
+         * @return table name
+         */
+        public String getTable() {
+            return table;
+        }
+
+        /**
+         * Get start datetime, every row of the table is at or after it
+         *
+         * @return start datetime, null if the legacy table
+         */
+        public Instant getStart() {
+            return start;
+        }
+
+        public boolean isLegacy() {
+            return start == null;
+        }
+
+        @Override
+        public int compareTo(Partition o) {
+            if (start == null)
+                return o.start == null ? 0 : -1;
+            if (o.start == null)
+                return 1;
+            return start.compareTo(o.start);
+        }
+    }
+
+    /**
+     * Partition period used from a day
+     */
+    private static class Period {
+        /**
+         * First day of the period (unit: epoch day)
+         */
+        private final long fromDay;
+        private final int days;
+
+        Period(long fromDay, int days) {
+            this.fromDay = fromDay;
+            this.days = days;
+        }
+    }
+
+    private final Logger logger;
+
+    private final ZoneId zone;
+
+    /**
+     * Configured partition period (unit: day)
+     */
+    private final int partitionDays;
+
+    /**
+     * Partition periods in day order, replaced at once by {@link #loadPeriods(Connection)}
+     */
+    private volatile List<Period> periods;
+
+    /**
+     * Tables known to exist, DDL is not executed for them again
+     */
+    private final Set<String> createdTables;
+
+    /**
+     * Newest row datetime of the legacy table, computed once
+     */
+    private volatile Instant legacyNewest;
+
+    /**
+     * CTor
+     *
+     * @param partitionDays partition period (unit: day)
+     */
+    public ChatLogPartitions(int partitionDays) {
+        this.logger = ChatDecorator.getInstance().getLogger();
+        this.zone = ZoneId.systemDefault();
+        this.partitionDays = Math.max(1, partitionDays);
+        this.createdTables = ConcurrentHashMap.newKeySet();
+        this.periods = Collections.singletonList(new Period(0, this.partitionDays));
+    }
+
+    /**
+     * Get partition start day of the day
+     *
+     * @param periods partition periods in day order
+     * @param day     epoch day
+     * @return partition start day (unit: epoch day)
+     */
+    private static long getStartDay(List<Period> periods, long day) {
+        Period period = periods.get(0);
+        for (Period p : periods) {
+            if (p.fromDay > day)
+                break;
+            period = p;
+        }
+        return period.fromDay + Math.floorDiv(day - period.fromDay, period.days) * period.days;
+    }
+
+    /**
+     * Load the recorded partition periods, and record the configured period if it is changed
+     * <p>
+     * The changed period starts at the end of the partition of today, or of the newest table if it is later.
+     * A change recorded but not started yet is replaced.
+     *
+     * @param connection {@link Connection}
+     * @throws SQLException sql exception
+     */
+    public void loadPeriods(Connection connection) throws SQLException {
+        List<Period> loaded = new ArrayList<>();
+        try (Statement stat = connection.createStatement();
+             ResultSet rs = stat.executeQuery("SELECT FROM_DAY, DAYS FROM " + PERIOD_TABLE + " ORDER BY FROM_DAY")) {
+            while (rs.next())
+                loaded.add(new Period(rs.getLong(1), rs.getInt(2)));
+        }
+
+        long day = LocalDate.now(zone).toEpochDay();
+        for (Partition partition : getPartitions(connection)) {
+            if (!partition.isLegacy())
+                day = Math.max(day, partition.getStart().atZone(zone).toLocalDate().toEpochDay());
+        }
+
+        if (loaded.isEmpty()) {
+            // 기록이 없던 데이터베이스, 기존 테이블은 설정된 기간으로 만들어졌다고 간주
+            insertPeriod(connection, 0, partitionDays);
+            loaded.add(new Period(0, partitionDays));
+        } else {
+            Period last = loaded.get(loaded.size() - 1);
+            if (loaded.size() > 1 && last.fromDay > day) {
+                try (PreparedStatement stat = connection.prepareStatement("DELETE FROM " + PERIOD_TABLE + " WHERE FROM_DAY = ?")) {
+                    stat.setLong(1, last.fromDay);
+                    stat.executeUpdate();
+                }
+                loaded.remove(loaded.size() - 1);
+                last = loaded.get(loaded.size() - 1);
+            }
+
+            if (last.days != partitionDays) {
+                long fromDay = getStartDay(loaded, day) + last.days;
+                insertPeriod(connection, fromDay, partitionDays);
+                loaded.add(new Period(fromDay, partitionDays));
+                logger.warn("Chat log partition period is changed from " + last.days + " to " + partitionDays +
+                        " days, applied from " + LocalDate.ofEpochDay(fromDay));
+            }
+        }
+
+        periods = Collections.unmodifiableList(loaded);
+    }
+
+    /**
+     * Record partition period
+     *
+     * @param connection {@link Connection}
+     * @param fromDay    first day of the period (unit: epoch day)
+     * @param days       partition period (unit: day)
+     * @throws SQLException sql exception
+     */
+    private void insertPeriod(Connection connection, long fromDay, int days) throws SQLException {
+        try (PreparedStatement stat = connection.prepareStatement("INSERT INTO " + PERIOD_TABLE + " (FROM_DAY, DAYS) VALUES (?, ?)")) {
+            stat.setLong(1, fromDay);
+            stat.setInt(2, days);
+            stat.executeUpdate();
+        }
+    }
+
+    /**
+     * Get partition start date of the datetime
+     *
+     * @param datetime datetime
+     * @return partition start date
+     */
+    private LocalDate getStartDate(Instant datetime) {
+        long epochDay = datetime.atZone(zone).toLocalDate().toEpochDay();
+        return LocalDate.ofEpochDay(getStartDay(periods, epochDay));
+    }
+
+    /**
+     * Get partition table name of the datetime
+     *
+     * @param datetime chat datetime
+     * @return table name
+     */
+    public String getTableName(Instant datetime) {
+        return TABLE_PREFIX + TABLE_DATE_FORMAT.format(getStartDate(datetime));
+    }
+
+    /**
+     * Create partition table if not exists
+     *
+     * @param connection {@link Connection}
+     * @param table      table name from {@link #getTableName(Instant)}
+     * @throws SQLException sql exception
+     */
+    public void ensureTable(Connection connection, String table) throws SQLException {
+        if (createdTables.contains(table))
+            return;
+
+        try (Statement stat = connection.createStatement()) {
+            stat.execute("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                    "UUID UUID NOT NULL, " +
+                    "DATETIME TIMESTAMP NOT NULL, " +
+                    "CONTENT VARCHAR(512) NOT NULL, " +
+                    "RESULT INT NOT NULL, " +
+                    "ID BIGINT DEFAULT NEXT VALUE FOR CHATLOG_ID_SEQ NOT NULL PRIMARY KEY)");
+            stat.execute("CREATE INDEX IF NOT EXISTS IDX_" + table + "_UUID_DATETIME ON " + table + " (UUID, DATETIME, ID)");
+        }
+        createdTables.add(table);
+    }
+
+    /**
+     * Get existing partitions in datetime order, the legacy table first
+     *
+     * @param connection {@link Connection}
+     * @return partition list
+     * @throws SQLException sql exception
+     */
+    public List<Partition> getPartitions(Connection connection) throws SQLException {
+        List<Partition> partitions = new ArrayList<>();
+        try (Statement stat = connection.createStatement();
+             ResultSet rs = stat.executeQuery("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+                     "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME LIKE 'CHATLOG\\_%'")) {
+            while (rs.next()) {
+                String table = rs.getString(1);
+                if (table.equals(LEGACY_TABLE)) {
+                    partitions.add(new Partition(table, null));
+                    continue;
+                }
+
+                try {
+                    LocalDate date = LocalDate.parse(table.substring(TABLE_PREFIX.length()), TABLE_DATE_FORMAT);
+                    partitions.add(new Partition(table, date.atStartOfDay(zone).toInstant()));
+                    createdTables.add(table);
+                } catch (DateTimeParseException e) {
+                    // CHATLOG_ 로 시작하는 다른 테이블
+                }
+            }
+        }
+
+        Collections.sort(partitions);
+        return partitions;
+    }
+
+    /**
+     * Get newest row datetime of the legacy table
+     *
+     * @param connection {@link Connection}
+     * @return newest datetime, null if the table is empty
+     * @throws SQLException sql exception
+     */
+    private Instant getLegacyNewest(Connection connection) throws SQLException {
+        if (legacyNewest != null)
+            return legacyNewest;
+
+        try (Statement stat = connection.createStatement();
+             ResultSet rs = stat.executeQuery("SELECT MAX(DATETIME) FROM " + LEGACY_TABLE)) {
+            Timestamp newest = rs.next() ? rs.getTimestamp(1) : null;
+            if (newest == null)
+                return null;
+
+            // 레거시 테이블에는 더 이상 기록되지 않으므로 한 번만 계산
+            legacyNewest = newest.toInstant();
+            return legacyNewest;
+        }
+    }
+
+    /**
+     * Drop the partitions whose rows are all older than the cutoff
+     * <p>
+     * The newest partition is never dropped.
+     *
+     * @param connection {@link Connection}
+     * @param cutoff     retention cutoff
+     * @return dropped table names
+     * @throws SQLException sql exception
+     */
+    public List<String> purge(Connection connection, Instant cutoff) throws SQLException {
+        List<Partition> partitions = getPartitions(connection);
+        List<String> dropped = new ArrayList<>();
+        for (int i = 0; i < partitions.size() - 1; i++) {
+            Partition partition = partitions.get(i);
+            boolean expired;
+            if (partition.isLegacy()) {
+                Instant newest = getLegacyNewest(connection);
+                expired = newest == null || newest.isBefore(cutoff);
+            } else {
+                expired = !partitions.get(i + 1).getStart().isAfter(cutoff);
+            }
+
+            if (!expired)
+                break;
+
+            try (Statement stat = connection.createStatement()) {
+                stat.execute("DROP TABLE IF EXISTS " + partition.getTable());
+            }
+            createdTables.remove(partition.getTable());
+            dropped.add(partition.getTable());
+            logger.info("Drop expired chat log partition: " + partition.getTable());
+        }
+
+        return dropped;
+    }
+}
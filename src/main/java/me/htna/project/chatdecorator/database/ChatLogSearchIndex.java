@@ -0,0 +1,517 @@
+package me.htna.project.chatdecorator.database;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+import org.slf4j.Logger;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index of the chat logs
+ * <p>
+ * Each token has a posting list of the document numbers and term frequencies, delta and varint encoded.
+ * The documents are partitioned by day (UTC), each partition has its own posting lists and document numbers.
+ * Document numbers are given in the order the logs are indexed, so the posting lists are only appended.
+ * The index keeps the store's log id, datetime and token count of each log, not the content.
+ * Hits are ranked by BM25 and their content is read from the {@link ChatLogStore} by log id at once.
+ * <p>
+ * {@link #evict(Instant)} drops the days before the search period or the retention cutoff as whole partitions,
+ * so the index holds only the logs that can be found.
+ * <p>
+ * On the server start the logs of the search period are indexed from the store in the background,
+ * and the logs written after that are indexed by {@link ChatLogWriter}.
+ * <p>
+ * 한글, 한자, 가나는 조사가 붙어도 찾을 수 있도록 2글자 단위로 나눔
+ */
+public class ChatLogSearchIndex {
+
+    /**
+     * Maximum characters of a token
+     */
+    private static final int MAX_TOKEN_LENGTH = 32;
+
+    /**
+     * Logs indexed at once while rebuilding
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * Candidates ranked per hit, the spare ones fill the hits purged from the store
+     */
+    private static final int CANDIDATE_FACTOR = 2;
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final float BM25_K1 = 1.2f;
+    private static final float BM25_B = 0.75f;
+
+    /**
+     * Append-only posting list, [varint log id delta][varint term frequency] per log
+     */
+    private static class PostingList {
+        byte[] data = new byte[8];
+        int size;
+        int lastDoc;
+        int count;
+
+        void add(int doc, int tf) {
+            writeVarint(doc - lastDoc);
+            writeVarint(tf);
+            lastDoc = doc;
+            count++;
+        }
+
+        private void writeVarint(int value) {
+            if (size + 5 > data.length)
+                data = Arrays.copyOf(data, data.length * 2);
+
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+
+    /**
+     * Documents of a day
+     */
+    private static class DayPartition {
+        final Map<String, PostingList> postings = new HashMap<>();
+        int docCount;
+        long[] docIds = new long[64];
+        long[] docTimes = new long[64];
+        short[] docLengths = new short[64];
+        long totalLength;
+    }
+
+    /**
+     * Ranked document
+     */
+    private static class Candidate {
+        final float score;
+        final long time;
+        final long id;
+
+        Candidate(float score, long time, long id) {
+            this.score = score;
+            this.time = time;
+            this.id = id;
+        }
+    }
+
+    private static final Comparator<Candidate> RANK = (a, b) -> {
+        int compare = Float.compare(a.score, b.score);
+        return compare != 0 ? compare : Long.compare(a.time, b.time);
+    };
+
+    /**
+     * Search hit
+     */
+    public static class Hit {
+        private final CHATLOG log;
+        private final float score;
+
+        Hit(CHATLOG log, float score) {
+            this.log = log;
+            this.score = score;
+        }
+
+        public CHATLOG getLog() {
+            return log;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+
+    private final Logger logger;
+
+    private final ChatLogStore store;
+
+    /**
+     * Search period (unit: day)
+     */
+    private final int searchDays;
+
+    /**
+     * Logs before it are indexed by {@link #rebuild()}, the others by {@link #add(List)}
+     */
+    private final Instant createdAt;
+
+    private final ReadWriteLock lock;
+
+    /**
+     * Partitions by epoch day
+     */
+    private final NavigableMap<Long, DayPartition> partitions;
+
+    /**
+     * Count of the documents having the token, over all partitions
+     */
+    private final Map<String, Integer> docFrequencies;
+
+    private int docCount;
+    private long totalLength;
+
+    /**
+     * Logs before it are evicted (unit: epoch millisecond)
+     */
+    private long evictedBefore;
+
+    private volatile boolean ready;
+
+    /**
+     * CTor
+     *
+     * @param store      {@link ChatLogStore} of the indexed logs
+     * @param searchDays search period (unit: day)
+     */
+    public ChatLogSearchIndex(ChatLogStore store, int searchDays) {
+        this.logger = ChatDecorator.getInstance().getLogger();
+        this.store = store;
+        this.searchDays = searchDays;
+        this.createdAt = Instant.now();
+        this.lock = new ReentrantReadWriteLock();
+        this.partitions = new TreeMap<>();
+        this.docFrequencies = new HashMap<>();
+        this.evictedBefore = Long.MIN_VALUE;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HANGUL || script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    /**
+     * Split text into tokens
+     * <p>
+     * Runs of letters and digits are tokens, CJK runs are split into bigrams.
+     *
+     * @param text text
+     * @return tokens, may have duplicates
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lower.length()) {
+            int codePoint = lower.codePointAt(i);
+            if (!Character.isLetterOrDigit(codePoint)) {
+                i += Character.charCount(codePoint);
+                continue;
+            }
+
+            boolean cjk = isCjk(codePoint);
+            int start = i;
+            while (i < lower.length()) {
+                int next = lower.codePointAt(i);
+                if (!Character.isLetterOrDigit(next) || isCjk(next) != cjk)
+                    break;
+                i += Character.charCount(next);
+            }
+
+            String run = lower.substring(start, i);
+            if (!cjk) {
+                tokens.add(run.length() > MAX_TOKEN_LENGTH ? run.substring(0, MAX_TOKEN_LENGTH) : run);
+                continue;
+            }
+
+            int[] codePoints = run.codePoints().toArray();
+            if (codePoints.length == 1) {
+                tokens.add(run);
+                continue;
+            }
+            for (int j = 0; j + 1 < codePoints.length; j++)
+                tokens.add(new String(codePoints, j, 2));
+        }
+        return tokens;
+    }
+
+    /**
+     * Index a log, caller holds the write lock
+     *
+     * @param log {@link CHATLOG}
+     */
+    private void index(CHATLOG log) {
+        long time = log.getDatetime().toEpochMilli();
+        if (time < evictedBefore)
+            return;
+
+        List<String> tokens = tokenize(log.getContent());
+        if (tokens.isEmpty())
+            return;
+
+        DayPartition partition = partitions.computeIfAbsent(Math.floorDiv(time, DAY_MILLIS), x -> new DayPartition());
+        if (partition.docCount == partition.docTimes.length) {
+            int capacity = partition.docCount * 2;
+            partition.docIds = Arrays.copyOf(partition.docIds, capacity);
+            partition.docTimes = Arrays.copyOf(partition.docTimes, capacity);
+            partition.docLengths = Arrays.copyOf(partition.docLengths, capacity);
+        }
+
+        int doc = partition.docCount++;
+        short length = (short) Math.min(tokens.size(), Short.MAX_VALUE);
+        partition.docIds[doc] = log.getId();
+        partition.docTimes[doc] = time;
+        partition.docLengths[doc] = length;
+        partition.totalLength += length;
+        docCount++;
+        totalLength += length;
+
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        for (String token : tokens)
+            frequencies.merge(token, 1, Integer::sum);
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            partition.postings.computeIfAbsent(frequency.getKey(), x -> new PostingList()).add(doc, frequency.getValue());
+            docFrequencies.merge(frequency.getKey(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Index the written logs
+     *
+     * @param logs {@link CHATLOG} list
+     */
+    public void add(List<CHATLOG> logs) {
+        lock.writeLock().lock();
+        try {
+            for (CHATLOG log : logs)
+                index(log);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index the stored logs of the search period
+     * <p>
+     * Runs for a while on a large store, call it off the server thread.
+     * Searches during the rebuild see the logs indexed so far.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<CHATLOG> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+        try {
+            store.scanChatLog(createdAt.minus(searchDays, ChronoUnit.DAYS), createdAt, log -> {
+                batch.add(log);
+                if (batch.size() >= REBUILD_BATCH_SIZE) {
+                    add(batch);
+                    batch.clear();
+                }
+            });
+            add(batch);
+            ready = true;
+            logger.info("Chat log search index is built, logs: " + getDocCount() + ", tokens: " + getTokenCount()
+                    + ", " + (System.currentTimeMillis() - start) + "ms");
+        } catch (SQLException e) {
+            logger.error("Chat log search index build error: " + e);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Drop the logs before the search period or the cutoff
+     * <p>
+     * Days entirely before it are dropped as whole partitions,
+     * the remaining logs of the cutoff day are skipped by the searches until the day is dropped.
+     *
+     * @param cutoff logs before it are dropped, ex) retention cutoff of the store
+     * @return dropped log count
+     */
+    public int evict(Instant cutoff) {
+        long before = Math.max(cutoff.toEpochMilli(), System.currentTimeMillis() - searchDays * DAY_MILLIS);
+        lock.writeLock().lock();
+        try {
+            evictedBefore = Math.max(evictedBefore, before);
+
+            int evicted = 0;
+            Map<Long, DayPartition> expired = partitions.headMap(Math.floorDiv(evictedBefore, DAY_MILLIS));
+            for (DayPartition partition : expired.values()) {
+                for (Map.Entry<String, PostingList> posting : partition.postings.entrySet()) {
+                    int count = posting.getValue().count;
+                    docFrequencies.computeIfPresent(posting.getKey(), (k, v) -> v > count ? v - count : null);
+                }
+                docCount -= partition.docCount;
+                totalLength -= partition.totalLength;
+                evicted += partition.docCount;
+            }
+            expired.clear();
+            return evicted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search logs
+     * <p>
+     * Logs having any of the terms are ranked by BM25, more matched terms and rarer terms rank higher.
+     * Same scores are ranked by the datetime, newer first.
+     * Only the partitions of the searched days are scored.
+     *
+     * @param query search terms
+     * @param since logs at or after it, null for the whole search period
+     * @param limit maximum hits
+     * @return hits in rank order
+     * @throws SQLException reading the content from the store failed
+     */
+    public List<Hit> search(String query, Instant since, int limit) throws SQLException {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokenize(query)) {
+            if (!terms.contains(token))
+                terms.add(token);
+        }
+        if (terms.isEmpty() || limit <= 0)
+            return new ArrayList<>();
+
+        long lower = System.currentTimeMillis() - searchDays * DAY_MILLIS;
+        if (since != null)
+            lower = Math.max(lower, since.toEpochMilli());
+        int candidateCount = limit * CANDIDATE_FACTOR;
+        Candidate[] ranked;
+
+        lock.readLock().lock();
+        try {
+            lower = Math.max(lower, evictedBefore);
+            float averageLength = docCount == 0 ? 1 : (float) totalLength / docCount;
+            float[] idfs = new float[terms.size()];
+            for (int i = 0; i < terms.size(); i++) {
+                int frequency = docFrequencies.getOrDefault(terms.get(i), 0);
+                idfs[i] = (float) Math.log(1 + (docCount - frequency + 0.5) / (frequency + 0.5));
+            }
+
+            // 점수 상위 후보만 유지하는 최소 힙
+            PriorityQueue<Candidate> top = new PriorityQueue<>(RANK);
+            for (DayPartition partition : partitions.tailMap(Math.floorDiv(lower, DAY_MILLIS), true).values()) {
+                float[] accumulated = new float[partition.docCount];
+                for (int i = 0; i < terms.size(); i++) {
+                    PostingList list = partition.postings.get(terms.get(i));
+                    if (list == null)
+                        continue;
+
+                    byte[] data = list.data;
+                    int position = 0;
+                    int doc = 0;
+                    while (position < list.size) {
+                        int value = 0;
+                        int shift = 0;
+                        byte b;
+                        do {
+                            b = data[position++];
+                            value |= (b & 0x7F) << shift;
+                            shift += 7;
+                        } while (b < 0);
+                        doc += value;
+
+                        int tf = 0;
+                        shift = 0;
+                        do {
+                            b = data[position++];
+                            tf |= (b & 0x7F) << shift;
+                            shift += 7;
+                        } while (b < 0);
+
+                        if (partition.docTimes[doc] < lower)
+                            continue;
+
+                        float norm = BM25_K1 * (1 - BM25_B + BM25_B * partition.docLengths[doc] / averageLength);
+                        accumulated[doc] += idfs[i] * tf * (BM25_K1 + 1) / (tf + norm);
+                    }
+                }
+
+                for (int doc = 0; doc < accumulated.length; doc++) {
+                    if (accumulated[doc] <= 0)
+                        continue;
+                    Candidate candidate = new Candidate(accumulated[doc], partition.docTimes[doc], partition.docIds[doc]);
+                    if (top.size() >= candidateCount && RANK.compare(candidate, top.peek()) <= 0)
+                        continue;
+                    top.add(candidate);
+                    if (top.size() > candidateCount)
+                        top.poll();
+                }
+            }
+
+            ranked = new Candidate[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--)
+                ranked[i] = top.poll();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // 보존 기간이 지나 삭제된 로그는 저장소에서 찾을 수 없으므로 다음 후보로 채움
+        List<Hit> hits = new ArrayList<>();
+        for (int from = 0; from < ranked.length && hits.size() < limit; ) {
+            int to = Math.min(ranked.length, from + limit - hits.size());
+            List<ChatLogCursor> keys = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++)
+                keys.add(new ChatLogCursor(Instant.ofEpochMilli(ranked[i].time), ranked[i].id));
+
+            Map<Long, CHATLOG> logs = new HashMap<>();
+            for (CHATLOG log : store.selectChatLogByIds(keys))
+                logs.put(log.getId(), log);
+            for (int i = from; i < to; i++) {
+                CHATLOG log = logs.get(ranked[i].id);
+                if (log != null)
+                    hits.add(new Hit(log, ranked[i].score));
+            }
+            from = to;
+        }
+        return hits;
+    }
+
+    /**
+     * Is the rebuild of the stored logs completed
+     *
+     * @return true if completed
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Get indexed log count
+     *
+     * @return log count
+     */
+    public int getDocCount() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get distinct token count
+     *
+     * @return token count
+     */
+    public int getTokenCount() {
+        lock.readLock().lock();
+        try {
+            return docFrequencies.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
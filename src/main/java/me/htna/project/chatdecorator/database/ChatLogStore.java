@@ -0,0 +1,136 @@
+package me.htna.project.chatdecorator.database;
+
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Chat log storage backend
+ * <p>
+ * Selected by the chatLog.store config, {@link H2Embedded} or {@link SegmentChatLogStore}.
+ * File based stores report their I/O errors as {@link SQLException}, so every store
+ * shares the error handling of the database operations.
+ * <p>
+ * The store order is (datetime, id) on H2 and the write order on the segment store.
+ */
+public interface ChatLogStore {
+
+    /**
+     * Insert chat log
+     *
+     * @param uuid     Sender uuid
+     * @param content  Chat
+     * @param datetime Send datetime
+     * @param reason   0 is the chat success, other is the reason for failure
+     * @throws SQLException write failed
+     */
+    void insertChatLog(String uuid, String content, Instant datetime, CHATLOG.Reason reason) throws SQLException;
+
+    /**
+     * Insert chat logs at once, all or nothing if the store supports it
+     * <p>
+     * The log id of each inserted log is set.
+     *
+     * @param logs {@link CHATLOG} list
+     * @throws SQLException write failed
+     */
+    void insertChatLogs(List<CHATLOG> logs) throws SQLException;
+
+    /**
+     * Select chat logs by log id
+     * <p>
+     * The datetime of the key finds the partition or segment of the log.
+     * Removed logs are skipped, so the result may be smaller than the keys.
+     *
+     * @param keys {@link ChatLogCursor} of the logs, datetime and id
+     * @return {@link CHATLOG} list in any order
+     * @throws SQLException read failed
+     */
+    List<CHATLOG> selectChatLogByIds(List<ChatLogCursor> keys) throws SQLException;
+
+    /**
+     * Select chat log
+     *
+     * @param uuid    Sender uuid
+     * @param instant take log start datetime
+     * @param take    take count
+     * @return {@link CHATLOG} list in the store order
+     * @throws SQLException read failed
+     */
+    default List<CHATLOG> selectChatLog(String uuid, Instant instant, int take) throws SQLException {
+        return selectChatLogAfter(uuid, ChatLogCursor.from(instant), take);
+    }
+
+    /**
+     * Select chat log page after the cursor
+     *
+     * @param uuid   Sender uuid
+     * @param cursor exclusive start of the page
+     * @param take   take count
+     * @return {@link CHATLOG} list in the store order
+     * @throws SQLException read failed
+     */
+    List<CHATLOG> selectChatLogAfter(String uuid, ChatLogCursor cursor, int take) throws SQLException;
+
+    /**
+     * Select chat log page before the cursor
+     *
+     * @param uuid   Sender uuid
+     * @param cursor exclusive end of the page
+     * @param take   take count
+     * @return {@link CHATLOG} list in the store order, the last one is the nearest to the cursor
+     * @throws SQLException read failed
+     */
+    List<CHATLOG> selectChatLogBefore(String uuid, ChatLogCursor cursor, int take) throws SQLException;
+
+    /**
+     * Read every chat log in the period, for rebuilding the derived data like the search index
+     * <p>
+     * Logs are passed in the storage order, which is roughly the datetime order.
+     *
+     * @param since    period start, inclusive
+     * @param until    period end, exclusive
+     * @param consumer log consumer
+     * @throws SQLException read failed
+     */
+    default void scanChatLog(Instant since, Instant until, Consumer<CHATLOG> consumer) throws SQLException {
+        scanChatLog(since, until, null, null, consumer);
+    }
+
+    /**
+     * Read the chat logs in the period matching the filter, for exporting
+     * <p>
+     * Logs are streamed to the consumer, the store never holds the whole result.
+     * Logs are passed in the storage order, which is roughly the datetime order.
+     *
+     * @param since    period start, inclusive
+     * @param until    period end, exclusive
+     * @param uuid     Sender uuid, null for every user
+     * @param reason   chat result, null for every result
+     * @param consumer log consumer
+     * @throws SQLException read failed
+     */
+    void scanChatLog(Instant since, Instant until, String uuid, CHATLOG.Reason reason, Consumer<CHATLOG> consumer) throws SQLException;
+
+    /**
+     * Remove the chat logs older than the cutoff
+     * <p>
+     * Stores remove whole partitions or segments, so logs slightly older than the cutoff may remain.
+     *
+     * @param cutoff retention cutoff
+     * @return removed partition or segment names
+     * @throws SQLException remove failed
+     */
+    List<String> purgeChatLog(Instant cutoff) throws SQLException;
+
+    /**
+     * Release the store resources
+     * <p>
+     * {@link H2Embedded} is released by {@link H2Embedded#disconnect()}.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,408 @@
+package me.htna.project.chatdecorator.database;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+import org.slf4j.Logger;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous chat log writer
+ * <p>
+ * Chat logs are put into a bounded queue, and a dedicated writer thread inserts them
+ * with {@link ChatLogStore#insertChatLogs(List)}, one transaction on the dedicated chat log connection of {@link H2Embedded}.
+ * A batch is committed when it reaches the batch size or the flush interval has elapsed since its first row.
+ * <p>
+ * If the queue stays full for {@link #OFFER_TIMEOUT}, the log is dropped and counted.
+ * The caller is the server thread, so it never inserts by itself,
+ * and every log is written by the writer thread in the queue order, which is the datetime order.
+ */
+public class ChatLogWriter {
+
+    /**
+     * Maximum wait for the writer thread on stop (unit: millisecond)
+     */
+    private static final long STOP_TIMEOUT = 10000;
+
+    /**
+     * Maximum wait for a queue slot when the queue is full (unit: millisecond)
+     */
+    private static final long OFFER_TIMEOUT = 5;
+
+    private final Logger logger;
+
+    private final ChatLogStore store;
+
+    /**
+     * Search index of the written logs, null if the search is disabled
+     */
+    private final ChatLogSearchIndex searchIndex;
+
+    private final BlockingQueue<CHATLOG> queue;
+
+    private final int batchSize;
+
+    /**
+     * Flush interval (unit: millisecond)
+     */
+    private final long flushInterval;
+
+    private Thread thread;
+
+    private volatile boolean running;
+
+    /**
+     * Rows committed by the writer thread
+     */
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    /**
+     * Committed batches
+     */
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * Rows dropped because the queue stayed full
+     */
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    /**
+     * Rows failed to write
+     */
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private volatile int lastBatchSize;
+
+    private volatile int maxBatchSize;
+
+    /**
+     * CTor without the search index
+     *
+     * @param store         {@link ChatLogStore}
+     * @param queueCapacity queue capacity
+     * @param batchSize     maximum rows of a batch
+     * @param flushInterval maximum delay of a row before commit (unit: millisecond)
+     */
+    public ChatLogWriter(ChatLogStore store, int queueCapacity, int batchSize, long flushInterval) {
+        this(store, null, queueCapacity, batchSize, flushInterval);
+    }
+
+    /**
+     * CTor
+     *
+     * @param store         {@link ChatLogStore}
+     * @param searchIndex   {@link ChatLogSearchIndex} of the written logs, nullable
+     * @param queueCapacity queue capacity
+     * @param batchSize     maximum rows of a batch
+     * @param flushInterval maximum delay of a row before commit (unit: millisecond)
+     */
+    public ChatLogWriter(ChatLogStore store, ChatLogSearchIndex searchIndex, int queueCapacity, int batchSize, long flushInterval) {
+        this.logger = ChatDecorator.getInstance().getLogger();
+        this.store = store;
+        this.searchIndex = searchIndex;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = Math.max(1, flushInterval);
+    }
+
+    /**
+     * Start writer thread
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            logger.warn("Chat log writer already run");
+            return;
+        }
+
+        running = true;
+        thread = new Thread(this::run, "ChatDecorator chat log writer");
+        thread.setDaemon(true);
+        thread.start();
+
+        logger.info("Run chat log writer, batch size: " + batchSize + ", flush interval: " + flushInterval + "ms");
+    }
+
+    /**
+     * Stop writer thread and flush the queued logs
+     */
+    public synchronized void stop() {
+        if (thread == null)
+            return;
+
+        running = false;
+        try {
+            thread.join(STOP_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (thread.isAlive())
+            logger.warn("Chat log writer did not stop in " + STOP_TIMEOUT + "ms");
+        thread = null;
+
+        // 쓰기 스레드가 종료된 뒤에 남은 로그 기록
+        List<CHATLOG> remain = new ArrayList<>();
+        queue.drainTo(remain);
+        for (CHATLOG entry : remain)
+            writeSync(entry);
+
+        logger.info("Stop chat log writer, written: " + writtenCount.get() + ", dropped: " + overflowCount.get() + ", failed: " + failedCount.get());
+    }
+
+    /**
+     * Queue chat log
+     *
+     * @param uuid     Sender uuid
+     * @param content  Chat
+     * @param datetime Send datetime
+     * @param reason   0 is the chat success, other is the reason for failure
+     */
+    public void write(String uuid, String content, Instant datetime, CHATLOG.Reason reason) {
+        CHATLOG entry = new CHATLOG();
+        entry.setUuid(uuid);
+        entry.setContent(content);
+        entry.setDatetime(datetime);
+        entry.setResult(reason);
+        if (!running) {
+            // 쓰기 스레드가 없으므로 호출 스레드에서 기록
+            writeSync(entry);
+            return;
+        }
+
+        try {
+            if (queue.offer(entry) || queue.offer(entry, OFFER_TIMEOUT, TimeUnit.MILLISECONDS))
+                return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 서버 틱을 막지 않도록 버림
+        if (overflowCount.incrementAndGet() == 1)
+            logger.warn("Chat log queue is full, logs are dropped");
+    }
+
+    /**
+     * Insert chat log on the caller thread
+     *
+     * @param entry {@link CHATLOG}
+     */
+    private void writeSync(CHATLOG entry) {
+        List<CHATLOG> logs = Collections.singletonList(entry);
+        try {
+            // 검색 색인에 로그 id가 필요하므로 id가 설정되는 일괄 기록 사용
+            store.insertChatLogs(logs);
+        } catch (SQLException | RuntimeException e) {
+            failedCount.incrementAndGet();
+            logger.error("Chat log write error: " + e);
+            e.printStackTrace();
+            return;
+        }
+        index(logs);
+    }
+
+    /**
+     * Add written logs to the search index
+     * <p>
+     * The logs are already stored, so an index failure is only logged.
+     *
+     * @param logs written chat logs
+     */
+    private void index(List<CHATLOG> logs) {
+        if (searchIndex == null)
+            return;
+
+        try {
+            searchIndex.add(logs);
+        } catch (RuntimeException e) {
+            logger.error("Chat log index error: " + e);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writer thread loop
+     */
+    private void run() {
+        try {
+            List<CHATLOG> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                CHATLOG first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0)
+                        continue;
+
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0 || !running)
+                        break;
+
+                    CHATLOG next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Insert batch through the store
+     * <p>
+     * If a row of the batch is rejected, the rows are written one by one.
+     * Other failures, ex) a closed connection or store, would fail every row too, so the batch is counted as failed.
+     * Unchecked exceptions are counted the same way, so the writer thread keeps running.
+     *
+     * @param batch chat logs
+     */
+    private void flush(List<CHATLOG> batch) {
+        try {
+            store.insertChatLogs(batch);
+        } catch (SQLException e) {
+            logger.error("Chat log batch write error: " + e);
+            e.printStackTrace();
+
+            if (!isRowError(e)) {
+                failedCount.addAndGet(batch.size());
+                return;
+            }
+            for (CHATLOG entry : batch)
+                writeSync(entry);
+            return;
+        } catch (RuntimeException e) {
+            failedCount.addAndGet(batch.size());
+            logger.error("Chat log batch write error: " + e);
+            e.printStackTrace();
+            return;
+        }
+
+        int size = batch.size();
+        writtenCount.addAndGet(size);
+        batchCount.incrementAndGet();
+        lastBatchSize = size;
+        if (size > maxBatchSize)
+            maxBatchSize = size;
+
+        index(batch);
+    }
+
+    /**
+     * Is the failure caused by a row of the batch
+     * <p>
+     * SQL state class 22 is a data exception, class 23 is an integrity constraint violation.
+     *
+     * @param e {@link SQLException}
+     * @return true if writing the rows one by one may save the others
+     */
+    private static boolean isRowError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    /**
+     * Get queued log count
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Get queue capacity
+     *
+     * @return queue capacity
+     */
+    public int getQueueCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    /**
+     * Get configured maximum batch size
+     *
+     * @return batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Get row count of the last committed batch
+     *
+     * @return last batch size
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * Get row count of the largest committed batch
+     *
+     * @return max batch size
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Get average row count of the committed batches
+     *
+     * @return average batch size
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0 : (double) writtenCount.get() / batches;
+    }
+
+    /**
+     * Get rows committed by the writer thread
+     *
+     * @return written count
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Get committed batch count
+     *
+     * @return batch count
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Get rows dropped because the queue stayed full
+     *
+     * @return overflow count
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * Get rows failed to write
+     *
+     * @return failed count
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
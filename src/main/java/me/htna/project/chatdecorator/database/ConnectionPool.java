@@ -0,0 +1,287 @@
+package me.htna.project.chatdecorator.database;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size connection pool
+ * <p>
+ * Every connection is opened on start and borrowed by one thread at a time,
+ * so the statements of a connection are never used concurrently.
+ * Each connection caches its prepared statements by SQL string.
+ */
+public class ConnectionPool {
+
+    /**
+     * Connection factory
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * Pooled connection with prepared statement cache
+     */
+    public static class PooledConnection {
+        private final Connection connection;
+
+        /**
+         * Prepared statements by SQL, in access order
+         */
+        private final LinkedHashMap<String, PreparedStatement> statements;
+
+        private final int statementCacheSize;
+
+        PooledConnection(Connection connection, int statementCacheSize) {
+            this.connection = connection;
+            this.statementCacheSize = statementCacheSize;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        /**
+         * Get prepared statement of the SQL
+         * <p>
+         * Returned statement is owned by the pool. Do not close it, and close its result sets.
+         *
+         * @param sql SQL string
+         * @return {@link PreparedStatement} with cleared parameters
+         * @throws SQLException sql exception
+         */
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            PreparedStatement pstat = statements.get(sql);
+            if (pstat != null && !pstat.isClosed()) {
+                pstat.clearParameters();
+                return pstat;
+            }
+
+            pstat = connection.prepareStatement(sql);
+            statements.put(sql, pstat);
+
+            // 가장 오래 사용하지 않은 구문 정리
+            if (statements.size() > statementCacheSize) {
+                Iterator<PreparedStatement> it = statements.values().iterator();
+                PreparedStatement eldest = it.next();
+                it.remove();
+                eldest.close();
+            }
+
+            return pstat;
+        }
+
+        /**
+         * Get raw connection
+         *
+         * @return {@link Connection}
+         */
+        public Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * Close cached statements and connection
+         */
+        void close() {
+            for (PreparedStatement pstat : statements.values()) {
+                try {
+                    pstat.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            statements.clear();
+
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    private final Logger logger;
+
+    private final ConnectionFactory factory;
+
+    private final int size;
+
+    private final int statementCacheSize;
+
+    /**
+     * Borrow timeout (unit: millisecond)
+     */
+    private final long borrowTimeout;
+
+    private final BlockingQueue<PooledConnection> idle;
+
+    /**
+     * All opened connections, for close
+     */
+    private final List<PooledConnection> connections;
+
+    private volatile boolean closed;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+
+    /**
+     * Borrows which had to wait for a connection
+     */
+    private final AtomicLong waitCount = new AtomicLong();
+
+    /**
+     * CTor
+     *
+     * @param factory            connection factory
+     * @param size               connection count
+     * @param statementCacheSize maximum cached statements per connection
+     * @param borrowTimeout      borrow timeout (unit: millisecond)
+     */
+    public ConnectionPool(ConnectionFactory factory, int size, int statementCacheSize, long borrowTimeout) {
+        this.logger = ChatDecorator.getInstance().getLogger();
+        this.factory = factory;
+        this.size = Math.max(1, size);
+        this.statementCacheSize = Math.max(1, statementCacheSize);
+        this.borrowTimeout = borrowTimeout;
+        this.idle = new ArrayBlockingQueue<>(this.size);
+        this.connections = new ArrayList<>(this.size);
+    }
+
+    /**
+     * Open every connection of the pool
+     *
+     * @throws SQLException sql exception
+     */
+    public synchronized void open() throws SQLException {
+        for (int i = connections.size(); i < size; i++) {
+            PooledConnection conn = new PooledConnection(factory.open(), statementCacheSize);
+            connections.add(conn);
+            idle.add(conn);
+        }
+    }
+
+    /**
+     * Borrow connection
+     * <p>
+     * Borrowed connection must be returned with {@link #release(PooledConnection)} in finally block.
+     *
+     * @return {@link PooledConnection}
+     * @throws SQLException if the pool is closed,
+     *                      {@link SQLTransientConnectionException} if no connection is returned in the borrow timeout
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed)
+            throw new SQLException("Connection pool is closed");
+
+        borrowCount.incrementAndGet();
+        PooledConnection conn = idle.poll();
+        if (conn != null)
+            return conn;
+
+        waitCount.incrementAndGet();
+        try {
+            conn = idle.poll(borrowTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        if (conn == null)
+            throw new SQLTransientConnectionException("No connection available in " + borrowTimeout + "ms");
+
+        return conn;
+    }
+
+    /**
+     * Return borrowed connection
+     * <p>
+     * Broken connection is replaced with a new one.
+     *
+     * @param conn borrowed connection
+     */
+    public void release(PooledConnection conn) {
+        if (conn == null)
+            return;
+
+        if (closed) {
+            conn.close();
+            return;
+        }
+
+        try {
+            if (conn.getConnection().isClosed()) {
+                logger.warn("Replace closed pooled connection");
+                PooledConnection replaced = new PooledConnection(factory.open(), statementCacheSize);
+                synchronized (this) {
+                    connections.remove(conn);
+                    connections.add(replaced);
+                }
+                conn = replaced;
+            }
+        } catch (SQLException e) {
+            logger.error("Pooled connection replace failed: " + e);
+            e.printStackTrace();
+        }
+
+        idle.offer(conn);
+    }
+
+    /**
+     * Close pool
+     * <p>
+     * Idle connections are closed now, borrowed ones are closed on return.
+     */
+    public synchronized void close() {
+        closed = true;
+        PooledConnection conn;
+        while ((conn = idle.poll()) != null)
+            conn.close();
+        connections.clear();
+    }
+
+    /**
+     * Get connection count
+     *
+     * @return pool size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get idle connection count
+     *
+     * @return idle connection count
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Get borrow count
+     *
+     * @return borrow count
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * Get borrow count which had to wait for a connection
+     *
+     * @return wait count
+     */
+    public long getWaitCount() {
+        return waitCount.get();
+    }
+}
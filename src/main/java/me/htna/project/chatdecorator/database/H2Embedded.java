@@ -2,6 +2,7 @@ package me.htna.project.chatdecorator.database;
 
 import lombok.var;
 import me.htna.project.chatdecorator.ChatDecorator;
+import me.htna.project.chatdecorator.database.ConnectionPool.PooledConnection;
 import me.htna.project.chatdecorator.database.entities.CHATLOG;
 import me.htna.project.chatdecorator.database.entities.MUTEINFO;
 import me.htna.project.chatdecorator.database.entities.NICKNAME;
@@ -12,19 +13,82 @@ import java.nio.file.Path;
 import java.sql.*;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
-public class H2Embedded {
+public class H2Embedded implements ChatLogStore {
     private static final String DRIVER = "org.h2.Driver";
     private static final String CONNECTION = "jdbc:h2:";
     private static final String USER = "";
     private static final String PASSWORD = "";
+
+    /**
+     * Connection borrow timeout (unit: millisecond)
+     */
+    private static final long BORROW_TIMEOUT = 5000;
+
+    /**
+     * Columns of {@link CHATLOG#CHATLOG(ResultSet)}
+     */
+    private static final String CHATLOG_COLUMNS = "UUID, DATETIME, CONTENT, RESULT, ID";
+
+    /**
+     * Rows fetched at once by the chat log scan
+     */
+    private static final int SCAN_FETCH_SIZE = 500;
+
+    private static final Comparator<CHATLOG> CHATLOG_ORDER =
+            Comparator.comparing(CHATLOG::getDatetime).thenComparingLong(CHATLOG::getId);
+
     private final Logger logger;
-    private Connection connection;
+
+    /**
+     * Connection pool, every query except the chat log writes and purges borrows a connection from it
+     */
+    private ConnectionPool pool;
+
+    /**
+     * Dedicated connection of the chat log writes and purges, outside the pool
+     * <p>
+     * Busy readers never delay the chat log batches, and a purge never drops a table the writer is inserting into.
+     */
+    private PooledConnection chatLogConnection;
+
+    private final Object chatLogLock = new Object();
+
+    /**
+     * Maximum cached prepared statements per connection
+     */
+    private int statementCacheSize;
+
+    /**
+     * Database file path of the connection
+     */
+    private Path file;
+
+    /**
+     * Chat log partition tables
+     */
+    private final ChatLogPartitions chatLogPartitions;
 
     public H2Embedded() {
+        this(1);
+    }
+
+    /**
+     * CTor
+     *
+     * @param chatLogPartitionDays chat log partition period (unit: day)
+     */
+    public H2Embedded(int chatLogPartitionDays) {
         logger = ChatDecorator.getInstance().getLogger();
+        chatLogPartitions = new ChatLogPartitions(chatLogPartitionDays);
     }
 
     private Timestamp convertInstantToTimestamp(Instant instant) {
@@ -35,6 +99,22 @@ public class H2Embedded {
         return timestamp.toInstant();
     }
 
+    /**
+     * Close result set, the statement is kept in the statement cache
+     *
+     * @param rs {@link ResultSet}
+     */
+    private void closeResultSet(ResultSet rs) {
+        if (rs == null)
+            return;
+
+        try {
+            rs.close();
+        } catch (SQLException e) {
+            logger.error("ResultSet close failed: " + e);
+        }
+    }
+
     /**
      * Insert nickname info
      *
@@ -44,9 +124,9 @@ public class H2Embedded {
      */
     public void insertNickname(String uuid, String nickname) throws SQLException {
         String qry = "INSERT INTO NICKNAME (UUID, NICKNAME, DATETIME) VALUES (?, ?, ?)";
-        PreparedStatement pstat = null;
+        PooledConnection conn = pool.borrow();
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, uuid);
             pstat.setString(2, nickname);
             pstat.setTimestamp(3, convertInstantToTimestamp(Instant.now()));
@@ -58,8 +138,7 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (pstat != null)
-                pstat.close();
+            pool.release(conn);
         }
     }
 
@@ -72,9 +151,9 @@ public class H2Embedded {
      */
     public void updateNickname(String uuid, String nickname) throws SQLException {
         String qry = "UPDATE NICKNAME SET NICKNAME = ?, DATETIME = ? WHERE UUID = ?";
-        PreparedStatement pstat = null;
+        PooledConnection conn = pool.borrow();
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, nickname);
             pstat.setTimestamp(2, convertInstantToTimestamp(Instant.now()));
             pstat.setString(3, uuid);
@@ -85,8 +164,7 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (pstat != null)
-                pstat.close();
+            pool.release(conn);
         }
     }
 
@@ -115,12 +193,12 @@ public class H2Embedded {
      */
     public Optional<NICKNAME> selectNickname(String uuid) throws SQLException {
         String qry = "SELECT * FROM NICKNAME WHERE UUID = ?";
-        PreparedStatement pstat = null;
+        PooledConnection conn = pool.borrow();
         ResultSet rs = null;
         NICKNAME nickname = null;
 
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, uuid);
 
             rs = pstat.executeQuery();
@@ -129,10 +207,8 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (rs != null)
-                rs.close();
-            if (pstat != null)
-                pstat.close();
+            closeResultSet(rs);
+            pool.release(conn);
         }
 
         return Optional.ofNullable(nickname);
@@ -145,17 +221,19 @@ public class H2Embedded {
      * @param sourceUuid
      * @param mute_datetime
      * @param reason
+     * @param expire_datetime expire datetime of the timed mute, null if the mute has no expiry
      * @throws SQLException
      */
-    public void insertMuteInfo(String uuid, String sourceUuid, Instant mute_datetime, String reason) throws SQLException {
-        String qry = "INSERT INTO MUTEINFO (UUID, MUTE_SOURCE, MUTE_DATE, REASON) VALUES (?, ?, ?, ?)";
-        PreparedStatement pstat = null;
+    public void insertMuteInfo(String uuid, String sourceUuid, Instant mute_datetime, String reason, Instant expire_datetime) throws SQLException {
+        String qry = "INSERT INTO MUTEINFO (UUID, MUTE_SOURCE, MUTE_DATE, REASON, EXPIRE_DATE) VALUES (?, ?, ?, ?, ?)";
+        PooledConnection conn = pool.borrow();
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, uuid);
             pstat.setString(2, sourceUuid);
             pstat.setTimestamp(3, convertInstantToTimestamp(mute_datetime));
             pstat.setString(4, reason);
+            pstat.setTimestamp(5, expire_datetime == null ? null : convertInstantToTimestamp(expire_datetime));
 
             int result = pstat.executeUpdate();
             if (result == 0)
@@ -164,8 +242,7 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (pstat != null)
-                pstat.close();
+            pool.release(conn);
         }
     }
 
@@ -178,13 +255,16 @@ public class H2Embedded {
      * @throws SQLException sql exception
      */
     public void unmute(String uuid, String sourceUuid, Instant unmute_datetime) throws SQLException {
-        String qry = "UPDATE MUTEINFO SET UNMUTE_SOURCE = ?, UNMUTE_DATE = ? WHERE UUID = ?";
-        PreparedStatement pstat = null;
+        // 이전 뮤트 기록의 해제 정보는 유지하고 활성 뮤트만 해제, 기한이 지난 뮤트는 만료 처리에 맡김
+        String qry = "UPDATE MUTEINFO SET UNMUTE_SOURCE = ?, UNMUTE_DATE = ? " +
+                "WHERE UUID = ? AND UNMUTE_DATE IS NULL AND (EXPIRE_DATE IS NULL OR EXPIRE_DATE > ?)";
+        PooledConnection conn = pool.borrow();
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, sourceUuid);
             pstat.setTimestamp(2, convertInstantToTimestamp(unmute_datetime));
             pstat.setString(3, uuid);
+            pstat.setTimestamp(4, convertInstantToTimestamp(unmute_datetime));
 
             int result = pstat.executeUpdate();
             if (result == 0)
@@ -192,9 +272,60 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (pstat != null)
-                pstat.close();
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Unmute the expired timed mute of the user
+     * <p>
+     * The unmute datetime is the expire datetime. Mutes unmuted already or not expired yet are not changed,
+     * so an expiry scheduled for an old mute never unmutes a newer one.
+     *
+     * @param uuid       target uuid
+     * @param sourceUuid source uuid
+     * @param now        current datetime
+     * @return expired mute count
+     * @throws SQLException sql exception
+     */
+    public int expireMute(String uuid, String sourceUuid, Instant now) throws SQLException {
+        String qry = "UPDATE MUTEINFO SET UNMUTE_SOURCE = ?, UNMUTE_DATE = EXPIRE_DATE " +
+                "WHERE UUID = ? AND UNMUTE_DATE IS NULL AND EXPIRE_DATE <= ?";
+        PooledConnection conn = pool.borrow();
+        try {
+            PreparedStatement pstat = conn.prepareStatement(qry);
+            pstat.setString(1, sourceUuid);
+            pstat.setString(2, uuid);
+            pstat.setTimestamp(3, convertInstantToTimestamp(now));
+            return pstat.executeUpdate();
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Select the timed mutes not unmuted yet, expired or not
+     *
+     * @return {@link MUTEINFO} list
+     * @throws SQLException sql exception
+     */
+    public List<MUTEINFO> selectActiveTimedMutes() throws SQLException {
+        String qry = "SELECT * FROM MUTEINFO WHERE UNMUTE_DATE IS NULL AND EXPIRE_DATE IS NOT NULL";
+        PooledConnection conn = pool.borrow();
+        ResultSet rs = null;
+        List<MUTEINFO> infos = new ArrayList<>();
+
+        try {
+            PreparedStatement pstat = conn.prepareStatement(qry);
+            rs = pstat.executeQuery();
+            while (rs.next())
+                infos.add(new MUTEINFO(rs));
+        } finally {
+            closeResultSet(rs);
+            pool.release(conn);
         }
+
+        return infos;
     }
 
     /**
@@ -206,12 +337,12 @@ public class H2Embedded {
      */
     public List<MUTEINFO> selectMuteInfo(String uuid) throws SQLException {
         String qry = "SELECT * FROM MUTEINFO WHERE UUID = ? ORDER BY IDX ASC";
-        PreparedStatement pstat = null;
+        PooledConnection conn = pool.borrow();
         ResultSet rs = null;
         List<MUTEINFO> infos = new ArrayList<>();
 
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, uuid);
 
             rs = pstat.executeQuery();
@@ -223,15 +354,52 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (rs != null)
-                rs.close();
-            if (pstat != null)
-                pstat.close();
+            closeResultSet(rs);
+            pool.release(conn);
         }
 
         return infos;
     }
 
+    /**
+     * Get chat log insert query of the partition table
+     *
+     * @param table partition table name
+     * @return insert query
+     */
+    public static String makeChatLogInsertQuery(String table) {
+        return "INSERT INTO " + table + " (UUID, DATETIME, CONTENT, RESULT) VALUES (?, ?, ?, ?)";
+    }
+
+    /**
+     * Make insert query of the chat log partition table with the reserved id
+     *
+     * @param table partition table name
+     * @return query
+     */
+    private static String makeChatLogInsertWithIdQuery(String table) {
+        return "INSERT INTO " + table + " (UUID, DATETIME, CONTENT, RESULT, ID) VALUES (?, ?, ?, ?, ?)";
+    }
+
+    /**
+     * Reserve ids of the chat logs from the id sequence
+     *
+     * @param conn  {@link PooledConnection}
+     * @param count id count
+     * @return ids
+     * @throws SQLException sql exception
+     */
+    private long[] reserveChatLogIds(PooledConnection conn, int count) throws SQLException {
+        long[] ids = new long[count];
+        PreparedStatement pstat = conn.prepareStatement("SELECT NEXT VALUE FOR CHATLOG_ID_SEQ FROM SYSTEM_RANGE(1, ?)");
+        pstat.setInt(1, count);
+        try (ResultSet rs = pstat.executeQuery()) {
+            for (int i = 0; i < count && rs.next(); i++)
+                ids[i] = rs.getLong(1);
+        }
+        return ids;
+    }
+
     /**
      * Insert chat log
      *
@@ -241,11 +409,15 @@ public class H2Embedded {
      * @param reason   0 is the chat success, other is the reason for failure
      * @throws SQLException sql exception
      */
+    @Override
     public void insertChatLog(String uuid, String content, Instant datetime, CHATLOG.Reason reason) throws SQLException {
-        String qry = "INSERT INTO CHATLOG VALUES (?, ?, ?, ?)";
-        PreparedStatement pstat = null;
+        String table = chatLogPartitions.getTableName(datetime);
+        String qry = makeChatLogInsertQuery(table);
+        PooledConnection conn = pool.borrow();
         try {
-            pstat = connection.prepareStatement(qry);
+            chatLogPartitions.ensureTable(conn.getConnection(), table);
+
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, uuid);
             pstat.setObject(2, convertInstantToTimestamp(datetime));
             pstat.setString(3, content);
@@ -253,53 +425,397 @@ public class H2Embedded {
 
             int result = pstat.executeUpdate();
             if (result == 0)
-                logger.error("User playtime update failed");
+                logger.error("Chat log insert failed");
+
+        } catch (SQLException e) {
+            throw e;
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Insert chat logs in one transaction
+     * <p>
+     * Ids are reserved from the sequence in one query, and set to the logs after the commit.
+     * Runs on the dedicated chat log connection, statements of the partition tables are kept in its statement cache.
+     *
+     * @param logs {@link CHATLOG} list
+     * @throws SQLException sql exception, nothing is inserted
+     */
+    @Override
+    public void insertChatLogs(List<CHATLOG> logs) throws SQLException {
+        // 한 파티션의 구문은 다른 구문을 준비하기 전에 실행, 구문 캐시에서 밀려나도 안전
+        Map<String, List<CHATLOG>> tables = new LinkedHashMap<>();
+        for (CHATLOG log : logs)
+            tables.computeIfAbsent(chatLogPartitions.getTableName(log.getDatetime()), x -> new ArrayList<>()).add(log);
+
+        synchronized (chatLogLock) {
+            PooledConnection conn = getChatLogConnection();
+            Connection connection = conn.getConnection();
+            try {
+                connection.setAutoCommit(false);
+                long[] ids = reserveChatLogIds(conn, logs.size());
+                Map<CHATLOG, Long> reserved = new IdentityHashMap<>();
+                int next = 0;
+                for (Map.Entry<String, List<CHATLOG>> table : tables.entrySet()) {
+                    chatLogPartitions.ensureTable(connection, table.getKey());
+
+                    PreparedStatement pstat = conn.prepareStatement(makeChatLogInsertWithIdQuery(table.getKey()));
+                    pstat.clearBatch();
+                    for (CHATLOG log : table.getValue()) {
+                        long id = ids[next++];
+                        reserved.put(log, id);
+                        pstat.setString(1, log.getUuid());
+                        pstat.setObject(2, convertInstantToTimestamp(log.getDatetime()));
+                        pstat.setString(3, log.getContent());
+                        pstat.setInt(4, log.getResult().getValue());
+                        pstat.setLong(5, id);
+                        pstat.addBatch();
+                    }
+                    pstat.executeBatch();
+                }
+                connection.commit();
+                reserved.forEach(CHATLOG::setId);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Select chat logs by log id
+     * <p>
+     * The keys are grouped by the partition containing their datetime, one query per partition.
+     * The legacy table may overlap the first partition, so it is read for the keys of the first partition too.
+     *
+     * @param keys {@link ChatLogCursor} of the logs, datetime and id
+     * @return {@link CHATLOG} list in any order
+     * @throws SQLException sql exception
+     */
+    @Override
+    public List<CHATLOG> selectChatLogByIds(List<ChatLogCursor> keys) throws SQLException {
+        List<CHATLOG> logs = new ArrayList<>();
+        if (keys.isEmpty())
+            return logs;
+
+        PooledConnection conn = pool.borrow();
+        try {
+            List<ChatLogPartitions.Partition> partitions = chatLogPartitions.getPartitions(conn.getConnection());
+            if (partitions.isEmpty())
+                return logs;
+
+            boolean legacy = partitions.get(0).isLegacy();
+            Map<String, List<Long>> tables = new LinkedHashMap<>();
+            for (ChatLogCursor key : keys) {
+                int index = legacy ? 0 : -1;
+                for (int i = legacy ? 1 : 0; i < partitions.size(); i++) {
+                    if (partitions.get(i).getStart().isAfter(key.getDatetime()))
+                        break;
+                    index = i;
+                }
+                if (index < 0)
+                    continue;
+
+                tables.computeIfAbsent(partitions.get(index).getTable(), x -> new ArrayList<>()).add(key.getId());
+                if (legacy && index == 1)
+                    tables.computeIfAbsent(partitions.get(0).getTable(), x -> new ArrayList<>()).add(key.getId());
+            }
+
+            for (Map.Entry<String, List<Long>> table : tables.entrySet()) {
+                StringBuilder qry = new StringBuilder("SELECT ").append(CHATLOG_COLUMNS).append(" FROM ")
+                        .append(table.getKey()).append(" WHERE ID IN (");
+                for (int i = 0; i < table.getValue().size(); i++)
+                    qry.append(i == 0 ? "?" : ", ?");
+                qry.append(')');
 
+                try (PreparedStatement pstat = conn.getConnection().prepareStatement(qry.toString())) {
+                    for (int i = 0; i < table.getValue().size(); i++)
+                        pstat.setLong(i + 1, table.getValue().get(i));
+                    try (ResultSet rs = pstat.executeQuery()) {
+                        while (rs.next())
+                            logs.add(new CHATLOG(rs));
+                    }
+                }
+            }
+        } finally {
+            pool.release(conn);
+        }
+        return logs;
+    }
+
+    /**
+     * Select chat log page after the cursor
+     * <p>
+     * Partitions are read in datetime order from the one containing the cursor,
+     * until the next partition starts after the last row to take.
+     *
+     * @param uuid   Sender uuid
+     * @param cursor exclusive start of the page
+     * @param take   take count
+     * @return {@link CHATLOG} in (datetime, id) order
+     * @throws SQLException sql seception
+     */
+    @Override
+    public List<CHATLOG> selectChatLogAfter(String uuid, ChatLogCursor cursor, int take) throws SQLException {
+        PooledConnection conn = pool.borrow();
+        ResultSet rs = null;
+        List<CHATLOG> logs = new ArrayList<>();
+
+        try {
+            List<ChatLogPartitions.Partition> partitions = chatLogPartitions.getPartitions(conn.getConnection());
+            for (int i = 0; i < partitions.size(); i++) {
+                // 다음 파티션이 커서 이전에 시작하면 이 파티션의 모든 로그는 커서 이전
+                // 레거시 테이블은 첫 파티션과 기간이 겹칠 수 있으므로 항상 조회
+                if (!partitions.get(i).isLegacy() && i + 1 < partitions.size() && !partitions.get(i + 1).getStart().isAfter(cursor.getDatetime()))
+                    continue;
+
+                String qry = "SELECT " + CHATLOG_COLUMNS + " FROM " + partitions.get(i).getTable() +
+                        " WHERE UUID = ? AND DATETIME >= ? AND (DATETIME > ? OR ID > ?) ORDER BY DATETIME ASC, ID ASC LIMIT ?";
+                rs = executeChatLogPageQuery(conn, qry, uuid, cursor, take);
+                while (rs.next()) {
+                    CHATLOG chatlog = new CHATLOG(rs);
+                    logs.add(chatlog);
+                }
+                closeResultSet(rs);
+                rs = null;
+
+                if (logs.size() < take)
+                    continue;
+
+                // 레거시 테이블과 첫 파티션은 기간이 겹칠 수 있으므로 정렬 후 판단
+                logs.sort(CHATLOG_ORDER);
+                Instant last = logs.get(take - 1).getDatetime();
+                if (i + 1 >= partitions.size() || partitions.get(i + 1).getStart().isAfter(last))
+                    break;
+            }
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (pstat != null)
-                pstat.close();
+            closeResultSet(rs);
+            pool.release(conn);
         }
+
+        if (logs.size() > take)
+            return new ArrayList<>(logs.subList(0, take));
+        return logs;
     }
 
     /**
-     * Select chat log
+     * Select chat log page before the cursor
+     * <p>
+     * Partitions are read in reverse datetime order from the one containing the cursor,
+     * until the partition starts before the first row to take.
      *
-     * @param uuid    Sender uuid
-     * @param instant take log start datetime
-     * @param take    take count
-     * @return {@link CHATLOG}
+     * @param uuid   Sender uuid
+     * @param cursor exclusive end of the page
+     * @param take   take count
+     * @return {@link CHATLOG} in (datetime, id) order
      * @throws SQLException sql seception
      */
-    public List<CHATLOG> selectChatLog(String uuid, Instant instant, int take) throws SQLException {
-        String qry = "SELECT * FROM CHATLOG WHERE UUID = ? AND DATETIME >= ? ORDER BY DATETIME ASC LIMIT ?";
-        PreparedStatement pstat = null;
+    @Override
+    public List<CHATLOG> selectChatLogBefore(String uuid, ChatLogCursor cursor, int take) throws SQLException {
+        PooledConnection conn = pool.borrow();
         ResultSet rs = null;
         List<CHATLOG> logs = new ArrayList<>();
 
         try {
-            pstat = connection.prepareStatement(qry);
+            List<ChatLogPartitions.Partition> partitions = chatLogPartitions.getPartitions(conn.getConnection());
+            for (int i = partitions.size() - 1; i >= 0; i--) {
+                ChatLogPartitions.Partition partition = partitions.get(i);
+                if (!partition.isLegacy() && partition.getStart().isAfter(cursor.getDatetime()))
+                    continue;
+
+                String qry = "SELECT " + CHATLOG_COLUMNS + " FROM " + partition.getTable() +
+                        " WHERE UUID = ? AND DATETIME <= ? AND (DATETIME < ? OR ID < ?) ORDER BY DATETIME DESC, ID DESC LIMIT ?";
+                rs = executeChatLogPageQuery(conn, qry, uuid, cursor, take);
+                while (rs.next()) {
+                    CHATLOG chatlog = new CHATLOG(rs);
+                    logs.add(chatlog);
+                }
+                closeResultSet(rs);
+                rs = null;
+
+                if (logs.size() < take || partition.isLegacy())
+                    continue;
+
+                // 이전 파티션의 로그는 모두 이 파티션의 시작 이전, 레거시 테이블은 겹칠 수 있으므로 조회
+                logs.sort(CHATLOG_ORDER.reversed());
+                Instant first = logs.get(take - 1).getDatetime();
+                boolean legacyNext = i == 1 && partitions.get(0).isLegacy();
+                if (!legacyNext && !first.isBefore(partition.getStart()))
+                    break;
+            }
+        } catch (SQLException e) {
+            throw e;
+        } finally {
+            closeResultSet(rs);
+            pool.release(conn);
+        }
+
+        logs.sort(CHATLOG_ORDER.reversed());
+        if (logs.size() > take)
+            logs = new ArrayList<>(logs.subList(0, take));
+        Collections.reverse(logs);
+        return logs;
+    }
+
+    /**
+     * Execute chat log page query with (uuid, datetime, datetime, id, take) parameters
+     *
+     * @param conn   {@link PooledConnection}
+     * @param qry    page query
+     * @param uuid   Sender uuid
+     * @param cursor page cursor
+     * @param take   take count
+     * @return {@link ResultSet}
+     * @throws SQLException sql exception
+     */
+    private ResultSet executeChatLogPageQuery(PooledConnection conn, String qry, String uuid, ChatLogCursor cursor, int take) throws SQLException {
+        PreparedStatement pstat = conn.prepareStatement(qry);
+        pstat.setString(1, uuid);
+        pstat.setTimestamp(2, convertInstantToTimestamp(cursor.getDatetime()));
+        pstat.setTimestamp(3, convertInstantToTimestamp(cursor.getDatetime()));
+        pstat.setLong(4, cursor.getId());
+        pstat.setInt(5, take);
+        return pstat.executeQuery();
+    }
+
+    /**
+     * Read the chat logs in the period matching the filter
+     * <p>
+     * Uses its own connection, so the long scan does not hold a pooled connection.
+     * The connection runs the queries lazily and the result sets are forward only,
+     * so the rows are streamed to the consumer instead of being materialized.
+     *
+     * @param since    period start, inclusive
+     * @param until    period end, exclusive
+     * @param uuid     Sender uuid, null for every user
+     * @param reason   chat result, null for every result
+     * @param consumer log consumer
+     * @throws SQLException sql exception
+     */
+    @Override
+    public void scanChatLog(Instant since, Instant until, String uuid, CHATLOG.Reason reason, Consumer<CHATLOG> consumer) throws SQLException {
+        StringBuilder where = new StringBuilder(" WHERE DATETIME >= ? AND DATETIME < ?");
+        if (uuid != null)
+            where.append(" AND UUID = ?");
+        if (reason != null)
+            where.append(" AND RESULT = ?");
+
+        try (Connection connection = openConnection()) {
+            try (Statement stat = connection.createStatement()) {
+                stat.execute("SET LAZY_QUERY_EXECUTION 1");
+            }
+
+            List<ChatLogPartitions.Partition> partitions = chatLogPartitions.getPartitions(connection);
+            for (int i = 0; i < partitions.size(); i++) {
+                ChatLogPartitions.Partition partition = partitions.get(i);
+                if (!partition.isLegacy() && i + 1 < partitions.size() && !partitions.get(i + 1).getStart().isAfter(since))
+                    continue;
+                if (!partition.isLegacy() && !partition.getStart().isBefore(until))
+                    break;
+
+                String qry = "SELECT " + CHATLOG_COLUMNS + " FROM " + partition.getTable() + where +
+                        " ORDER BY DATETIME ASC, ID ASC";
+                try (PreparedStatement pstat = connection.prepareStatement(qry, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    int index = 1;
+                    pstat.setFetchSize(SCAN_FETCH_SIZE);
+                    pstat.setTimestamp(index++, convertInstantToTimestamp(since));
+                    pstat.setTimestamp(index++, convertInstantToTimestamp(until));
+                    if (uuid != null)
+                        pstat.setString(index++, uuid);
+                    if (reason != null)
+                        pstat.setInt(index, reason.getValue());
+                    try (ResultSet rs = pstat.executeQuery()) {
+                        while (rs.next())
+                            consumer.accept(new CHATLOG(rs));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop the chat log partitions older than the cutoff
+     * <p>
+     * Runs on the dedicated chat log connection between the batches of the writer.
+     *
+     * @param cutoff retention cutoff
+     * @return dropped table names
+     * @throws SQLException sql exception
+     */
+    @Override
+    public List<String> purgeChatLog(Instant cutoff) throws SQLException {
+        synchronized (chatLogLock) {
+            return chatLogPartitions.purge(getChatLogConnection().getConnection(), cutoff);
+        }
+    }
+
+    /**
+     * Get dedicated chat log connection, caller holds {@link #chatLogLock}
+     * <p>
+     * Closed connection is replaced with a new one.
+     *
+     * @return {@link PooledConnection}
+     * @throws SQLException sql exception
+     */
+    private PooledConnection getChatLogConnection() throws SQLException {
+        if (chatLogConnection == null || chatLogConnection.getConnection().isClosed()) {
+            if (chatLogConnection != null)
+                logger.warn("Replace closed chat log connection");
+            chatLogConnection = new PooledConnection(openConnection(), statementCacheSize);
+        }
+        return chatLogConnection;
+    }
+
+    /**
+     * Select user profile
+     * <p>
+     * User info, nickname and the last mute info are selected in one round trip.
+     * The last mute info is found by the (UUID, IDX) index, so a long mute history costs nothing.
+     *
+     * @param uuid user uuid
+     * @return {@link UserProfile}, its user info is empty if the user has never joined
+     * @throws SQLException sql exception
+     */
+    public UserProfile selectUserProfile(String uuid) throws SQLException {
+        String qry = "SELECT U.UUID, U.JOIN_TIMESTAMP, U.LAST_TIMESTAMP, U.PLAY_TIME, " +
+                "N.UUID, N.NICKNAME, N.DATETIME, " +
+                "M.IDX, M.UUID, M.MUTE_SOURCE, M.MUTE_DATE, M.REASON, M.UNMUTE_SOURCE, M.UNMUTE_DATE, M.EXPIRE_DATE " +
+                "FROM USERINFO U " +
+                "LEFT JOIN NICKNAME N ON N.UUID = U.UUID " +
+                "LEFT JOIN MUTEINFO M ON M.UUID = U.UUID AND M.IDX = (SELECT MAX(IDX) FROM MUTEINFO WHERE UUID = U.UUID) " +
+                "WHERE U.UUID = ?";
+        PooledConnection conn = pool.borrow();
+        ResultSet rs = null;
+        USERINFO userinfo = null;
+        NICKNAME nickname = null;
+        MUTEINFO muteInfo = null;
+
+        try {
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, uuid);
-            pstat.setTimestamp(2, convertInstantToTimestamp(instant));
-            pstat.setInt(3, take);
 
             rs = pstat.executeQuery();
-            while (rs.next()) {
-                CHATLOG chatlog = new CHATLOG(rs);
-                logs.add(chatlog);
+            if (rs.next()) {
+                userinfo = new USERINFO(rs, 1);
+                if (rs.getString(5) != null)
+                    nickname = new NICKNAME(rs, 5);
+                if (rs.getTimestamp(11) != null)
+                    muteInfo = new MUTEINFO(rs, 8);
             }
-
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (rs != null)
-                rs.close();
-            if (pstat != null)
-                pstat.close();
+            closeResultSet(rs);
+            pool.release(conn);
         }
 
-        return logs;
+        return new UserProfile(userinfo, nickname, muteInfo);
     }
 
     /**
@@ -311,12 +827,12 @@ public class H2Embedded {
      */
     public Optional<USERINFO> selectUserInfo(String uuid) throws SQLException {
         String qry = "SELECT * FROM USERINFO WHERE UUID = ?";
-        PreparedStatement pstat = null;
+        PooledConnection conn = pool.borrow();
         ResultSet rs = null;
         USERINFO userinfo = null;
 
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, uuid);
 
             rs = pstat.executeQuery();
@@ -327,10 +843,8 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (rs != null)
-                rs.close();
-            if (pstat != null)
-                pstat.close();
+            closeResultSet(rs);
+            pool.release(conn);
         }
 
         return Optional.ofNullable(userinfo);
@@ -345,12 +859,12 @@ public class H2Embedded {
      */
     public long selectUserPlayTime(String uuid) throws SQLException {
         String qry = "SELECT PLAY_TIME FROM USERINFO WHERE UUID = ?";
-        PreparedStatement pstat = null;
+        PooledConnection conn = pool.borrow();
         ResultSet rs = null;
 
         long result = -1;
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, uuid);
 
             rs = pstat.executeQuery();
@@ -360,10 +874,8 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (rs != null)
-                rs.close();
-            if (pstat != null)
-                pstat.close();
+            closeResultSet(rs);
+            pool.release(conn);
         }
 
         return result;
@@ -378,9 +890,9 @@ public class H2Embedded {
      */
     public void insertUserInfo(String uuid, Instant join, Instant last) throws SQLException {
         String qry = "INSERT INTO USERINFO VALUES(?, ?, ?, 0)";
-        PreparedStatement pstat = null;
+        PooledConnection conn = pool.borrow();
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setString(1, uuid);
             pstat.setObject(2, convertInstantToTimestamp(join));
             pstat.setObject(3, convertInstantToTimestamp(last));
@@ -392,8 +904,7 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (pstat != null)
-                pstat.close();
+            pool.release(conn);
         }
     }
 
@@ -406,9 +917,9 @@ public class H2Embedded {
      */
     public void updateUserInfo(String uuid, Instant last) throws SQLException {
         String qry = "UPDATE USERINFO SET LAST_TIMESTAMP = ? WHERE UUID = ?";
-        PreparedStatement pstat = null;
+        PooledConnection conn = pool.borrow();
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setObject(1, convertInstantToTimestamp(last));
             pstat.setString(2, uuid);
 
@@ -419,8 +930,7 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (pstat != null)
-                pstat.close();
+            pool.release(conn);
         }
     }
 
@@ -433,9 +943,9 @@ public class H2Embedded {
      */
     public void updateUserPlaytime(String uuid, long playtime) throws SQLException {
         String qry = "UPDATE USERINFO SET PLAY_TIME = ? WHERE UUID = ?";
-        PreparedStatement pstat = null;
+        PooledConnection conn = pool.borrow();
         try {
-            pstat = connection.prepareStatement(qry);
+            PreparedStatement pstat = conn.prepareStatement(qry);
             pstat.setLong(1, playtime);
             pstat.setString(2, uuid);
 
@@ -446,17 +956,51 @@ public class H2Embedded {
         } catch (SQLException e) {
             throw e;
         } finally {
-            if (pstat != null)
-                pstat.close();
+            pool.release(conn);
         }
     }
 
     /**
-     * Create connection to database
+     * Update playtime of the users at once in one transaction
      *
-     * @param file Database file path
+     * @param playtimes playtime by uuid
+     * @throws SQLException sql exception, no playtime is updated
      */
-    public void connect(Path file) {
+    public void updateUserPlaytimes(Map<String, Long> playtimes) throws SQLException {
+        if (playtimes.isEmpty())
+            return;
+
+        String qry = "UPDATE USERINFO SET PLAY_TIME = ? WHERE UUID = ?";
+        PooledConnection conn = pool.borrow();
+        Connection connection = conn.getConnection();
+        try {
+            connection.setAutoCommit(false);
+            PreparedStatement pstat = conn.prepareStatement(qry);
+            pstat.clearBatch();
+            for (Map.Entry<String, Long> playtime : playtimes.entrySet()) {
+                pstat.setLong(1, playtime.getValue());
+                pstat.setString(2, playtime.getKey());
+                pstat.addBatch();
+            }
+            pstat.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Migrate schema and create connection pool to database
+     *
+     * @param file               Database file path
+     * @param poolSize           connection count
+     * @param statementCacheSize maximum cached prepared statements per connection
+     */
+    public void connect(Path file, int poolSize, int statementCacheSize) {
         try {
             Class.forName(DRIVER);
         } catch (ClassNotFoundException e) {
@@ -464,25 +1008,68 @@ public class H2Embedded {
             e.printStackTrace();
         }
 
+        this.file = file;
+        this.statementCacheSize = statementCacheSize;
+        try (Connection connection = openConnection()) {
+            new SchemaMigrator().migrate(connection);
+            chatLogPartitions.loadPeriods(connection);
+        } catch (SQLException e) {
+            logger.error("H2FileDB#connect schema migration failed");
+            e.printStackTrace();
+        }
+
         try {
-            connection = DriverManager.getConnection(CONNECTION + file + ";TRACE_LEVEL_FILE=0;TRACE_LEVEL_SYSTEM_OUT=0", USER, PASSWORD);
+            pool = new ConnectionPool(this::openConnection, poolSize, statementCacheSize, BORROW_TIMEOUT);
+            pool.open();
+            logger.info("Open connection pool, size: " + pool.getSize());
         } catch (SQLException e) {
             logger.error("H2FileDB#connect SQLException");
             e.printStackTrace();
         }
     }
 
+    /**
+     * Open another connection to the connected database
+     * <p>
+     * Used by the connection pool and the dedicated chat log connection.
+     * Caller must close the returned connection.
+     *
+     * @return new {@link Connection}
+     * @throws SQLException sql exception
+     */
+    public Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(CONNECTION + file + ";TRACE_LEVEL_FILE=0;TRACE_LEVEL_SYSTEM_OUT=0", USER, PASSWORD);
+    }
+
     /**
      * Disconnection
      */
     public void disconnect() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+        if (pool != null)
+            pool.close();
+        synchronized (chatLogLock) {
+            if (chatLogConnection != null) {
+                chatLogConnection.close();
+                chatLogConnection = null;
             }
-        } catch (SQLException e) {
-            ChatDecorator.getInstance().getLogger().error("H2FileDB#disconnect SQLException");
-            e.printStackTrace();
         }
     }
+
+    /**
+     * Get chat log partition tables
+     *
+     * @return {@link ChatLogPartitions}
+     */
+    public ChatLogPartitions getChatLogPartitions() {
+        return chatLogPartitions;
+    }
+
+    /**
+     * Get connection pool
+     *
+     * @return {@link ConnectionPool}, null before connect
+     */
+    public ConnectionPool getPool() {
+        return pool;
+    }
 }
@@ -0,0 +1,211 @@
+package me.htna.project.chatdecorator.database;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Database schema migration runner
+ * <p>
+ * Applied versions are recorded in the SCHEMA_VERSION table, and every migration newer than
+ * the recorded version is applied in version order at startup.
+ * Statements use IF NOT EXISTS where possible, because the databases copied from the old
+ * prebuilt asset already have the version 1 tables without SCHEMA_VERSION.
+ * <p>
+ * 새 스키마 변경은 기존 마이그레이션을 수정하지 말고 다음 버전으로 추가할 것
+ */
+public class SchemaMigrator {
+
+    /**
+     * Schema migration
+     */
+    public static class Migration {
+        private final int version;
+        private final String description;
+        private final String[] statements;
+
+        /**
+         * CTor
+         *
+         * @param version     schema version after this migration
+         * @param description description
+         * @param statements  SQL statements
+         */
+        public Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS;
+
+    static {
+        List<Migration> migrations = new ArrayList<>();
+
+        // 기존 chatdeco.h2.mv.db 에셋과 같은 스키마
+        migrations.add(new Migration(1, "Initial schema",
+                "CREATE TABLE IF NOT EXISTS USERINFO (" +
+                        "UUID VARCHAR(50) NOT NULL, " +
+                        "JOIN_TIMESTAMP TIMESTAMP NOT NULL, " +
+                        "LAST_TIMESTAMP TIMESTAMP NOT NULL, " +
+                        "PLAY_TIME BIGINT NOT NULL, " +
+                        "CONSTRAINT CONSTRAINT_1 PRIMARY KEY (UUID))",
+                "CREATE TABLE IF NOT EXISTS NICKNAME (" +
+                        "UUID VARCHAR(50) NOT NULL, " +
+                        "NICKNAME VARCHAR(50) NOT NULL, " +
+                        "DATETIME TIMESTAMP NOT NULL, " +
+                        "CONSTRAINT NICKNAME_PK PRIMARY KEY (UUID))",
+                "ALTER TABLE NICKNAME ADD CONSTRAINT IF NOT EXISTS NICKNAME_USERINFO_UUID_FK " +
+                        "FOREIGN KEY (UUID) REFERENCES USERINFO (UUID) NOCHECK",
+                "CREATE TABLE IF NOT EXISTS MUTEINFO (" +
+                        "IDX INT AUTO_INCREMENT NOT NULL, " +
+                        "UUID VARCHAR(50) NOT NULL, " +
+                        "MUTE_SOURCE VARCHAR(50) NOT NULL, " +
+                        "MUTE_DATE TIMESTAMP NOT NULL, " +
+                        "REASON VARCHAR(255) NOT NULL, " +
+                        "UNMUTE_SOURCE VARCHAR(50), " +
+                        "UNMUTE_DATE TIMESTAMP)",
+                "CREATE TABLE IF NOT EXISTS CHATLOG (" +
+                        "UUID UUID NOT NULL, " +
+                        "DATETIME TIMESTAMP NOT NULL, " +
+                        "CONTENT VARCHAR(512) NOT NULL, " +
+                        "RESULT INT NOT NULL)"));
+
+        // selectChatLog: WHERE UUID = ? AND DATETIME >= ? ORDER BY DATETIME
+        // selectMuteInfo: WHERE UUID = ? ORDER BY IDX
+        migrations.add(new Migration(2, "Composite indexes of chat log and mute info",
+                "CREATE INDEX IF NOT EXISTS IDX_CHATLOG_UUID_DATETIME ON CHATLOG (UUID, DATETIME)",
+                "CREATE INDEX IF NOT EXISTS IDX_MUTEINFO_UUID_IDX ON MUTEINFO (UUID, IDX)"));
+
+        // 일 단위 파티션 테이블은 ChatLogPartitions에서 생성, 기존 테이블은 레거시 파티션으로 유지
+        migrations.add(new Migration(3, "Partitioned chat log",
+                "CREATE SEQUENCE IF NOT EXISTS CHATLOG_ID_SEQ",
+                "ALTER TABLE IF EXISTS CHATLOG RENAME TO " + ChatLogPartitions.LEGACY_TABLE,
+                "ALTER TABLE " + ChatLogPartitions.LEGACY_TABLE + " ADD COLUMN IF NOT EXISTS " +
+                        "ID BIGINT DEFAULT NEXT VALUE FOR CHATLOG_ID_SEQ NOT NULL"));
+
+        // 기한이 없는 뮤트는 NULL
+        migrations.add(new Migration(4, "Timed mute",
+                "ALTER TABLE MUTEINFO ADD COLUMN IF NOT EXISTS EXPIRE_DATE TIMESTAMP"));
+
+        // 파티션 기간 변경 이력, 행은 ChatLogPartitions에서 기록
+        migrations.add(new Migration(5, "Chat log partition period",
+                "CREATE TABLE IF NOT EXISTS " + ChatLogPartitions.PERIOD_TABLE + " (" +
+                        "FROM_DAY BIGINT NOT NULL PRIMARY KEY, " +
+                        "DAYS INT NOT NULL)"));
+
+        MIGRATIONS = Collections.unmodifiableList(migrations);
+    }
+
+    private final Logger logger;
+
+    public SchemaMigrator() {
+        logger = ChatDecorator.getInstance().getLogger();
+    }
+
+    /**
+     * Get the latest schema version
+     *
+     * @return latest version
+     */
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).getVersion();
+    }
+
+    /**
+     * Get the applied schema version
+     *
+     * @param connection {@link Connection}
+     * @return applied version, 0 if nothing is applied
+     * @throws SQLException sql exception
+     */
+    public int getCurrentVersion(Connection connection) throws SQLException {
+        try (Statement stat = connection.createStatement()) {
+            stat.execute("CREATE TABLE IF NOT EXISTS SCHEMA_VERSION (" +
+                    "VERSION INT NOT NULL PRIMARY KEY, " +
+                    "DESCRIPTION VARCHAR(255) NOT NULL, " +
+                    "APPLIED_AT TIMESTAMP NOT NULL)");
+
+            try (ResultSet rs = stat.executeQuery("SELECT MAX(VERSION) FROM SCHEMA_VERSION")) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Apply every migration newer than the applied version
+     *
+     * @param connection {@link Connection}
+     * @throws SQLException sql exception
+     */
+    public void migrate(Connection connection) throws SQLException {
+        int targetVersion = getLatestVersion();
+        int current = getCurrentVersion(connection);
+        if (current >= targetVersion) {
+            logger.info("Database schema is up to date, version: " + current);
+            return;
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (Migration migration : MIGRATIONS) {
+                if (migration.getVersion() <= current)
+                    continue;
+
+                logger.info("Migrate database schema to version " + migration.getVersion() + ": " + migration.getDescription());
+                apply(connection, migration);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Apply one migration and record its version
+     *
+     * @param connection {@link Connection}
+     * @param migration  {@link Migration}
+     * @throws SQLException sql exception
+     */
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        try (Statement stat = connection.createStatement()) {
+            for (String sql : migration.statements)
+                stat.execute(sql);
+
+            try (PreparedStatement pstat = connection.prepareStatement(
+                    "INSERT INTO SCHEMA_VERSION (VERSION, DESCRIPTION, APPLIED_AT) VALUES (?, ?, ?)")) {
+                pstat.setInt(1, migration.getVersion());
+                pstat.setString(2, migration.getDescription());
+                pstat.setTimestamp(3, Timestamp.from(Instant.now()));
+                pstat.executeUpdate();
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            // DDL은 H2에서 자동 커밋되므로 실패한 마이그레이션은 IF NOT EXISTS로 다시 적용 가능해야 함
+            connection.rollback();
+            logger.error("Schema migration version " + migration.getVersion() + " failed: " + e);
+            throw e;
+        }
+    }
+}
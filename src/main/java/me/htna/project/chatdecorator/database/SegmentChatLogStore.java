@@ -0,0 +1,848 @@
+package me.htna.project.chatdecorator.database;
+
+import me.htna.project.chatdecorator.ChatDecorator;
+import me.htna.project.chatdecorator.database.entities.CHATLOG;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only chat log store on memory mapped segment files
+ * <p>
+ * Chat logs are appended to fixed size segment files as length prefixed binary records,
+ * [int length][long uuid msb][long uuid lsb][long epoch millis][int result][content UTF-8].
+ * The length is written after the body, so a record cut off by a crash is never read.
+ * <p>
+ * Each segment keeps a sparse index in memory, one block per {@link #INDEX_INTERVAL} records.
+ * A block has its first record offset, the running maximum datetime and a 64 bit mask of the uuid hashes in it.
+ * A query finds the first block by binary search on the datetime and scans forward, skipping the blocks without the uuid.
+ * The index is rebuilt by scanning the segments on open.
+ * <p>
+ * A block has one bit per distinct sender, so the skip works while a block has much fewer senders than 64.
+ * With {@link #INDEX_INTERVAL} records per block, about 20% of the blocks are read for nothing at 16 distinct senders per block.
+ * <p>
+ * The segments are unmapped explicitly on purge and close, after the running scans release them,
+ * so the purged files can be deleted on every platform.
+ */
+public class SegmentChatLogStore implements ChatLogStore {
+
+    private static final String SEGMENT_PREFIX = "chatlog-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * Record body size without the content (uuid, datetime, result)
+     */
+    private static final int FIXED_SIZE = 8 + 8 + 8 + 4;
+
+    /**
+     * Records per sparse index block
+     */
+    private static final int INDEX_INTERVAL = 16;
+
+    /**
+     * Segment file
+     */
+    private static class Segment {
+        final long id;
+        final Path path;
+        final MappedByteBuffer buffer;
+
+        /**
+         * End of the written records
+         */
+        int position;
+        int count;
+        long maxTime = Long.MIN_VALUE;
+
+        int blocks;
+        int[] blockOffsets = new int[16];
+        long[] blockMaxTimes = new long[16];
+        long[] blockMasks = new long[16];
+
+        /**
+         * Scans reading the buffer without the lock
+         */
+        private int users;
+
+        /**
+         * Removed from the store, unmapped when the last scan releases it
+         */
+        private boolean retired;
+
+        /**
+         * Delete the file after unmap
+         */
+        private boolean deleteOnRelease;
+
+        Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        synchronized void acquire() {
+            users++;
+        }
+
+        /**
+         * Release the segment acquired by a scan
+         *
+         * @return if true, the segment is retired and no longer used, dispose it
+         */
+        synchronized boolean release() {
+            users--;
+            return retired && users == 0;
+        }
+
+        /**
+         * Remove the segment from the store
+         *
+         * @param delete if true, delete the file after unmap
+         * @return if true, no scan uses the segment, dispose it now
+         */
+        synchronized boolean retire(boolean delete) {
+            retired = true;
+            deleteOnRelease = delete;
+            return users == 0;
+        }
+
+        /**
+         * Add record to the sparse index, called in the record order
+         *
+         * @param offset record offset
+         * @param time   record datetime (unit: epoch millisecond)
+         * @param mask   uuid hash bit
+         */
+        void index(int offset, long time, long mask) {
+            if (count % INDEX_INTERVAL == 0) {
+                if (blocks == blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+                    blockMaxTimes = Arrays.copyOf(blockMaxTimes, blocks * 2);
+                    blockMasks = Arrays.copyOf(blockMasks, blocks * 2);
+                }
+                blockOffsets[blocks] = offset;
+                blockMaxTimes[blocks] = maxTime;
+                blockMasks[blocks] = 0;
+                blocks++;
+            }
+
+            maxTime = Math.max(maxTime, time);
+            blockMaxTimes[blocks - 1] = maxTime;
+            blockMasks[blocks - 1] |= mask;
+            count++;
+        }
+
+        /**
+         * Find the first block which may have a record at or after the datetime
+         *
+         * @param time datetime (unit: epoch millisecond)
+         * @return block index, {@link #blocks} if none
+         */
+        int findBlock(long time) {
+            // 누적 최대 시각은 단조 증가하므로 이진 탐색 가능
+            int low = 0;
+            int high = blocks;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (blockMaxTimes[mid] < time)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * Find the block containing the record
+         *
+         * @param offset record offset
+         * @return block index
+         */
+        int findBlockOf(int offset) {
+            int low = 0;
+            int high = blocks - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (blockOffsets[mid] <= offset)
+                    low = mid;
+                else
+                    high = mid - 1;
+            }
+            return low;
+        }
+
+        String getName() {
+            return path.getFileName().toString();
+        }
+    }
+
+    private final Logger logger;
+
+    private final Path directory;
+
+    /**
+     * Segment file size (unit: byte)
+     */
+    private final int segmentSize;
+
+    /**
+     * Segments in write order, the last one is written
+     */
+    private final List<Segment> segments;
+
+    private final ReadWriteLock lock;
+
+    private boolean open;
+
+    /**
+     * CTor
+     *
+     * @param directory   segment directory
+     * @param segmentSize segment file size (unit: megabyte)
+     */
+    public SegmentChatLogStore(Path directory, int segmentSize) {
+        this.logger = ChatDecorator.getInstance().getLogger();
+        this.directory = directory;
+        this.segmentSize = Math.max(1, Math.min(segmentSize, 1024)) * 1024 * 1024;
+        this.segments = new ArrayList<>();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Map the segment files and rebuild their index
+     *
+     * @throws SQLException I/O error
+     */
+    public void open() throws SQLException {
+        lock.writeLock().lock();
+        try {
+            Files.createDirectories(directory);
+
+            List<Long> ids = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    try {
+                        ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        logger.warn("Skip unknown chat log segment file: " + name);
+                    }
+                }
+            }
+            Collections.sort(ids);
+
+            for (int i = 0; i < ids.size(); i++) {
+                long id = ids.get(i);
+                Segment segment = map(id, i == ids.size() - 1);
+                scan(segment);
+                segments.add(segment);
+            }
+
+            if (segments.isEmpty())
+                segments.add(map(1, true));
+
+            open = true;
+            logger.info("Open chat log segments: " + segments.size() + ", directory: " + directory);
+        } catch (IOException e) {
+            throw ioError("Chat log segment open failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Force the written segment to the disk and unmap the segments
+     * <p>
+     * The segments used by a running scan are unmapped when the scan ends.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (!open)
+                return;
+
+            segments.get(segments.size() - 1).buffer.force();
+            for (Segment segment : segments) {
+                if (segment.retire(false))
+                    dispose(segment);
+            }
+            segments.clear();
+            open = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Unmap the retired segment, and delete its file if purged
+     *
+     * @param segment {@link Segment} no longer used
+     */
+    private void dispose(Segment segment) {
+        if (!unmap(segment.buffer))
+            logger.debug("Chat log segment is unmapped by GC: " + segment.getName());
+        if (!segment.deleteOnRelease)
+            return;
+
+        try {
+            Files.deleteIfExists(segment.path);
+            logger.info("Delete expired chat log segment: " + segment.getName());
+        } catch (IOException e) {
+            logger.warn("Chat log segment delete failed, retried after restart: " + segment.path + ", " + e);
+        }
+    }
+
+    /**
+     * Unmap the buffer now instead of waiting for GC
+     * <p>
+     * Uses Unsafe#invokeCleaner on Java 9 or later, and DirectBuffer#cleaner on Java 8.
+     * The buffer must not be read after this.
+     *
+     * @param buffer {@link MappedByteBuffer}
+     * @return if true, unmapped
+     */
+    private static boolean unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try {
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Java 8
+                Method cleaner = buffer.getClass().getMethod("cleaner");
+                cleaner.setAccessible(true);
+                Object clean = cleaner.invoke(buffer);
+                if (clean == null)
+                    return false;
+                clean.getClass().getMethod("clean").invoke(clean);
+                return true;
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private SQLException ioError(String message, IOException e) {
+        return new SQLException(message + ": " + e, e);
+    }
+
+    private Path getPath(long id) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Map segment file, created with the segment size if not exists
+     *
+     * @param id       segment id
+     * @param writable map for write, the last segment only
+     * @return {@link Segment}
+     * @throws IOException I/O error
+     */
+    private Segment map(long id, boolean writable) throws IOException {
+        Path path = getPath(id);
+        if (writable) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = Math.max(channel.size(), segmentSize);
+                return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        // 매핑은 채널을 닫은 뒤에도 유지됨
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Segment(id, path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read the records of the segment to rebuild the index and find the write position
+     *
+     * @param segment {@link Segment}
+     */
+    private void scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + 4 <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length < FIXED_SIZE || position + 4 + length > buffer.capacity())
+                break;
+
+            long msb = buffer.getLong(position + 4);
+            long lsb = buffer.getLong(position + 12);
+            long time = buffer.getLong(position + 20);
+            segment.index(position, time, hashBit(msb, lsb));
+            position += 4 + length;
+        }
+        segment.position = position;
+    }
+
+    /**
+     * Get uuid hash bit of the sparse index mask
+     *
+     * @param msb uuid most significant bits
+     * @param lsb uuid least significant bits
+     * @return mask with one bit set
+     */
+    private static long hashBit(long msb, long lsb) {
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return 1L << (hash >>> 58);
+    }
+
+    /**
+     * Append record, caller holds the write lock
+     *
+     * @param log {@link CHATLOG}
+     * @throws SQLException store is closed or the record is larger than a segment
+     */
+    private void append(CHATLOG log) throws SQLException {
+        if (!open)
+            throw new SQLException("Chat log segment store is closed");
+
+        UUID uuid = UUID.fromString(log.getUuid());
+        byte[] content = log.getContent().getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_SIZE + content.length;
+
+        Segment segment = segments.get(segments.size() - 1);
+        if (segment.position + 4 + length > segment.buffer.capacity()) {
+            if (4 + length > segmentSize)
+                throw new SQLException("Chat log record is larger than the segment size: " + length, "22001");
+
+            try {
+                segment.buffer.force();
+                segment = map(segment.id + 1, true);
+            } catch (IOException e) {
+                throw ioError("Chat log segment create failed", e);
+            }
+            segments.add(segment);
+        }
+
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.position;
+        long time = log.getDatetime().toEpochMilli();
+        buffer.putLong(position + 4, uuid.getMostSignificantBits());
+        buffer.putLong(position + 12, uuid.getLeastSignificantBits());
+        buffer.putLong(position + 20, time);
+        buffer.putInt(position + 28, log.getResult().getValue());
+        buffer.position(position + 4 + FIXED_SIZE);
+        buffer.put(content);
+
+        // 길이를 마지막에 기록, 길이가 0인 위치에서 읽기가 끝남
+        buffer.putInt(position, length);
+
+        segment.index(position, time, hashBit(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+        segment.position = position + 4 + length;
+        log.setId(makeId(segment, position));
+    }
+
+    @Override
+    public void insertChatLog(String uuid, String content, Instant datetime, CHATLOG.Reason reason) throws SQLException {
+        CHATLOG log = new CHATLOG();
+        log.setUuid(uuid);
+        log.setContent(content);
+        log.setDatetime(datetime);
+        log.setResult(reason);
+
+        lock.writeLock().lock();
+        try {
+            append(log);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Append chat logs
+     * <p>
+     * Records are visible to queries when this returns. They reach the disk by the page cache,
+     * and are forced on segment roll and close.
+     *
+     * @param logs {@link CHATLOG} list
+     * @throws SQLException write failed, the logs before the failed one are kept
+     */
+    @Override
+    public void insertChatLogs(List<CHATLOG> logs) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            for (CHATLOG log : logs)
+                append(log);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get log id of the record, segment id and offset
+     *
+     * @param segment  {@link Segment}
+     * @param position record offset
+     * @return log id
+     */
+    private static long makeId(Segment segment, int position) {
+        return (segment.id << 32) | position;
+    }
+
+    /**
+     * Select chat log page after the cursor
+     * <p>
+     * Logs are returned in the write order, which is the datetime order of the chat log writer queue.
+     * The first page is found by the datetime of the cursor, the next pages by the id.
+     *
+     * @param uuid   Sender uuid
+     * @param cursor exclusive start of the page
+     * @param take   take count
+     * @return {@link CHATLOG}
+     * @throws SQLException store is closed
+     */
+    @Override
+    public List<CHATLOG> selectChatLogAfter(String uuid, ChatLogCursor cursor, int take) throws SQLException {
+        UUID target = UUID.fromString(uuid);
+        long msb = target.getMostSignificantBits();
+        long lsb = target.getLeastSignificantBits();
+        long mask = hashBit(msb, lsb);
+        boolean byTime = cursor.getId() == Long.MIN_VALUE;
+        long time = byTime ? cursor.getDatetime().toEpochMilli() : Long.MIN_VALUE;
+        long cursorSegment = cursor.getId() >> 32;
+        List<CHATLOG> logs = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            if (!open)
+                throw new SQLException("Chat log segment store is closed");
+
+            for (Segment segment : segments) {
+                int block;
+                if (byTime) {
+                    if (segment.maxTime < time)
+                        continue;
+                    block = segment.findBlock(time);
+                } else {
+                    if (segment.id < cursorSegment)
+                        continue;
+                    block = segment.id == cursorSegment ? segment.findBlockOf((int) cursor.getId()) : 0;
+                }
+
+                ByteBuffer buffer = segment.buffer;
+                for (; block < segment.blocks; block++) {
+                    if ((segment.blockMasks[block] & mask) == 0)
+                        continue;
+
+                    int position = segment.blockOffsets[block];
+                    int end = block + 1 < segment.blocks ? segment.blockOffsets[block + 1] : segment.position;
+                    while (position < end) {
+                        int length = buffer.getInt(position);
+                        if (buffer.getLong(position + 4) == msb && buffer.getLong(position + 12) == lsb
+                                && buffer.getLong(position + 20) >= time && makeId(segment, position) > cursor.getId()) {
+                            logs.add(read(segment, position, length, uuid));
+                            if (logs.size() >= take)
+                                return logs;
+                        }
+                        position += 4 + length;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return logs;
+    }
+
+    /**
+     * Select chat log page before the cursor
+     * <p>
+     * Blocks are read backward from the cursor. The page before the first page is found by the datetime of the cursor.
+     *
+     * @param uuid   Sender uuid
+     * @param cursor exclusive end of the page
+     * @param take   take count
+     * @return {@link CHATLOG} in the write order
+     * @throws SQLException store is closed
+     */
+    @Override
+    public List<CHATLOG> selectChatLogBefore(String uuid, ChatLogCursor cursor, int take) throws SQLException {
+        UUID target = UUID.fromString(uuid);
+        long msb = target.getMostSignificantBits();
+        long lsb = target.getLeastSignificantBits();
+        long mask = hashBit(msb, lsb);
+        boolean byTime = cursor.getId() == Long.MIN_VALUE;
+        long time = byTime ? cursor.getDatetime().toEpochMilli() : Long.MAX_VALUE;
+        long id = byTime ? Long.MAX_VALUE : cursor.getId();
+        long cursorSegment = id >> 32;
+        Deque<CHATLOG> logs = new ArrayDeque<>();
+
+        lock.readLock().lock();
+        try {
+            if (!open)
+                throw new SQLException("Chat log segment store is closed");
+
+            for (int i = segments.size() - 1; i >= 0 && logs.size() < take; i--) {
+                Segment segment = segments.get(i);
+                if (segment.blocks == 0 || segment.id > cursorSegment)
+                    continue;
+
+                int block;
+                if (byTime)
+                    block = Math.min(segment.findBlock(time), segment.blocks - 1);
+                else
+                    block = segment.id == cursorSegment ? segment.findBlockOf((int) id) : segment.blocks - 1;
+
+                ByteBuffer buffer = segment.buffer;
+                List<CHATLOG> matched = new ArrayList<>();
+                for (; block >= 0 && logs.size() < take; block--) {
+                    if ((segment.blockMasks[block] & mask) == 0)
+                        continue;
+
+                    matched.clear();
+                    int position = segment.blockOffsets[block];
+                    int end = block + 1 < segment.blocks ? segment.blockOffsets[block + 1] : segment.position;
+                    while (position < end) {
+                        int length = buffer.getInt(position);
+                        if (buffer.getLong(position + 4) == msb && buffer.getLong(position + 12) == lsb
+                                && buffer.getLong(position + 20) < time && makeId(segment, position) < id)
+                            matched.add(read(segment, position, length, uuid));
+                        position += 4 + length;
+                    }
+
+                    for (int j = matched.size() - 1; j >= 0 && logs.size() < take; j--)
+                        logs.addFirst(matched.get(j));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return new ArrayList<>(logs);
+    }
+
+    /**
+     * Select chat logs by log id, the segment id and offset in the id find the record
+     *
+     * @param keys {@link ChatLogCursor} of the logs, datetime and id
+     * @return {@link CHATLOG} list in any order
+     * @throws SQLException store is closed
+     */
+    @Override
+    public List<CHATLOG> selectChatLogByIds(List<ChatLogCursor> keys) throws SQLException {
+        List<CHATLOG> logs = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (!open)
+                throw new SQLException("Chat log segment store is closed");
+
+            for (ChatLogCursor key : keys) {
+                long segmentId = key.getId() >> 32;
+                int position = (int) key.getId();
+                int low = 0;
+                int high = segments.size() - 1;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (segments.get(mid).id < segmentId)
+                        low = mid + 1;
+                    else
+                        high = mid;
+                }
+
+                Segment segment = segments.get(low);
+                if (segment.id != segmentId || position < 0 || position >= segment.position)
+                    continue;
+
+                ByteBuffer buffer = segment.buffer;
+                UUID uuid = new UUID(buffer.getLong(position + 4), buffer.getLong(position + 12));
+                logs.add(read(segment, position, buffer.getInt(position), uuid.toString()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return logs;
+    }
+
+    /**
+     * Read record
+     *
+     * @param segment  {@link Segment}
+     * @param position record offset
+     * @param length   record length
+     * @param uuid     record uuid
+     * @return {@link CHATLOG}
+     */
+    private CHATLOG read(Segment segment, int position, int length, String uuid) {
+        ByteBuffer buffer = segment.buffer;
+        byte[] content = new byte[length - FIXED_SIZE];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + 4 + FIXED_SIZE);
+        view.get(content);
+
+        CHATLOG log = new CHATLOG();
+        log.setUuid(uuid);
+        log.setDatetime(Instant.ofEpochMilli(buffer.getLong(position + 20)));
+        log.setContent(new String(content, StandardCharsets.UTF_8));
+        log.setResult(CHATLOG.Reason.valueOf(buffer.getInt(position + 28)).orElse(CHATLOG.Reason.ERROR));
+        log.setId(makeId(segment, position));
+        return log;
+    }
+
+    /**
+     * Read the chat logs in the period matching the filter
+     * <p>
+     * Written records never change, so the segments are scanned without the lock
+     * in the range found at the start of the scan.
+     * With the uuid filter, blocks without the uuid hash are skipped.
+     *
+     * @param since    period start, inclusive
+     * @param until    period end, exclusive
+     * @param uuid     Sender uuid, null for every user
+     * @param reason   chat result, null for every result
+     * @param consumer log consumer
+     * @throws SQLException store is closed
+     */
+    @Override
+    public void scanChatLog(Instant since, Instant until, String uuid, CHATLOG.Reason reason, Consumer<CHATLOG> consumer) throws SQLException {
+        long sinceTime = since.toEpochMilli();
+        long untilTime = until.toEpochMilli();
+        UUID target = uuid == null ? null : UUID.fromString(uuid);
+        long msb = target == null ? 0 : target.getMostSignificantBits();
+        long lsb = target == null ? 0 : target.getLeastSignificantBits();
+        long mask = target == null ? -1L : hashBit(msb, lsb);
+
+        // 블록 배열은 늘어날 때 새로 할당되므로 스캔 시작 시점의 배열을 그대로 사용
+        List<Segment> scanned = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+        List<int[]> offsets = new ArrayList<>();
+        List<long[]> masks = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            if (!open)
+                throw new SQLException("Chat log segment store is closed");
+
+            for (Segment segment : segments) {
+                if (segment.maxTime < sinceTime)
+                    continue;
+
+                segment.acquire();
+                scanned.add(segment);
+                ranges.add(new int[]{segment.findBlock(sinceTime), segment.blocks, segment.position});
+                offsets.add(segment.blockOffsets);
+                masks.add(segment.blockMasks);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // 스캔 중에 삭제된 세그먼트는 스캔이 끝난 뒤에 해제
+        int i = 0;
+        try {
+            for (; i < scanned.size(); i++) {
+                Segment segment = scanned.get(i);
+                ByteBuffer buffer = segment.buffer;
+                int[] range = ranges.get(i);
+                int[] blockOffsets = offsets.get(i);
+                long[] blockMasks = masks.get(i);
+                for (int block = range[0]; block < range[1]; block++) {
+                    if ((blockMasks[block] & mask) == 0)
+                        continue;
+
+                    int position = blockOffsets[block];
+                    int end = block + 1 < range[1] ? blockOffsets[block + 1] : range[2];
+                    while (position < end) {
+                        int length = buffer.getInt(position);
+                        long time = buffer.getLong(position + 20);
+                        if (time >= sinceTime && time < untilTime
+                                && (target == null || buffer.getLong(position + 4) == msb && buffer.getLong(position + 12) == lsb)
+                                && (reason == null || buffer.getInt(position + 28) == reason.getValue())) {
+                            String recordUuid = uuid != null ? uuid
+                                    : new UUID(buffer.getLong(position + 4), buffer.getLong(position + 12)).toString();
+                            consumer.accept(read(segment, position, length, recordUuid));
+                        }
+                        position += 4 + length;
+                    }
+                }
+
+                if (segment.release())
+                    dispose(segment);
+            }
+        } finally {
+            for (; i < scanned.size(); i++) {
+                if (scanned.get(i).release())
+                    dispose(scanned.get(i));
+            }
+        }
+    }
+
+    /**
+     * Delete the segments whose logs are all older than the cutoff
+     * <p>
+     * The written segment is never deleted.
+     *
+     * @param cutoff retention cutoff
+     * @return deleted segment file names
+     * @throws SQLException store is closed
+     */
+    @Override
+    public List<String> purgeChatLog(Instant cutoff) throws SQLException {
+        long time = cutoff.toEpochMilli();
+        List<String> deleted = new ArrayList<>();
+
+        lock.writeLock().lock();
+        try {
+            if (!open)
+                throw new SQLException("Chat log segment store is closed");
+
+            for (int i = segments.size() - 2; i >= 0; i--) {
+                Segment segment = segments.get(i);
+                if (segment.maxTime >= time)
+                    continue;
+
+                segments.remove(i);
+                deleted.add(segment.getName());
+                // 매핑된 파일은 삭제할 수 없는 플랫폼이 있으므로 해제한 뒤에 삭제
+                if (segment.retire(true))
+                    dispose(segment);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Collections.reverse(deleted);
+        return deleted;
+    }
+
+    /**
+     * Get segment count
+     *
+     * @return segment count
+     */
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
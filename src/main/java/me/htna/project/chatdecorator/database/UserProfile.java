@@ -0,0 +1,45 @@
+package me.htna.project.chatdecorator.database;
+
+import lombok.Getter;
+import me.htna.project.chatdecorator.database.entities.MUTEINFO;
+import me.htna.project.chatdecorator.database.entities.NICKNAME;
+import me.htna.project.chatdecorator.database.entities.USERINFO;
+
+import java.util.Optional;
+
+/**
+ * Stored profile of a user
+ * <p>
+ * User info, nickname and last mute info selected with one joined query.
+ * The mute history is not loaded, it is read only by {@code /cd mutelog}.
+ */
+public class UserProfile {
+
+    /**
+     * {@link USERINFO}, empty if the user has never joined
+     */
+    @Getter
+    private final Optional<USERINFO> userInfo;
+
+    @Getter
+    private final Optional<NICKNAME> nickname;
+
+    /**
+     * Last {@link MUTEINFO}, the active mute if muted
+     */
+    @Getter
+    private final Optional<MUTEINFO> lastMuteInfo;
+
+    /**
+     * CTor
+     *
+     * @param userInfo  {@link USERINFO}
+     * @param nickname  {@link NICKNAME}
+     * @param lastMuteInfo last {@link MUTEINFO}
+     */
+    public UserProfile(USERINFO userInfo, NICKNAME nickname, MUTEINFO lastMuteInfo) {
+        this.userInfo = Optional.ofNullable(userInfo);
+        this.nickname = Optional.ofNullable(nickname);
+        this.lastMuteInfo = Optional.ofNullable(lastMuteInfo);
+    }
+}
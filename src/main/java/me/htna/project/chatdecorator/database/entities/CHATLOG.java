@@ -26,6 +26,13 @@ public class CHATLOG {
     @Setter
     Reason result;
 
+    /**
+     * Order of the logs of the same datetime, ID column or segment position
+     */
+    @Getter
+    @Setter
+    long id;
+
     public CHATLOG() {
 
     }
@@ -35,6 +42,7 @@ public class CHATLOG {
         datetime = rs.getTimestamp(2).toInstant();
         content = rs.getString(3);
         result = Reason.valueOf(rs.getInt(4)).orElse(Reason.ERROR);
+        id = rs.getLong(5);
     }
 
     public enum Reason {
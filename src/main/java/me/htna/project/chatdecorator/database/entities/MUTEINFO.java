@@ -31,20 +31,38 @@ public class MUTEINFO {
     @Getter
     @Setter
     private Optional<Instant> unmute_datetime;
+    /**
+     * Expire datetime of the timed mute, empty if the mute has no expiry
+     */
+    @Getter
+    @Setter
+    private Optional<Instant> expire_datetime;
 
     public MUTEINFO(){}
     public MUTEINFO(ResultSet set) throws SQLException {
-        idx = set.getInt(1);
-        uuid = set.getString(2);
-        mute_source_uuid = set.getString(3);
-        mute_datetime = set.getTimestamp(4).toInstant();
-        reason = set.getString(5);
-        unmute_source_uuid = Optional.ofNullable(set.getString(6));
-        Optional<Timestamp> opt = Optional.ofNullable(set.getTimestamp(7));
+        this(set, 1);
+    }
+
+    /**
+     * CTor
+     *
+     * @param set    {@link ResultSet}
+     * @param column index of the first MUTEINFO column
+     * @throws SQLException sql exception
+     */
+    public MUTEINFO(ResultSet set, int column) throws SQLException {
+        idx = set.getInt(column);
+        uuid = set.getString(column + 1);
+        mute_source_uuid = set.getString(column + 2);
+        mute_datetime = set.getTimestamp(column + 3).toInstant();
+        reason = set.getString(column + 4);
+        unmute_source_uuid = Optional.ofNullable(set.getString(column + 5));
+        Optional<Timestamp> opt = Optional.ofNullable(set.getTimestamp(column + 6));
         if (opt.isPresent()) {
             unmute_datetime = Optional.ofNullable(opt.get().toInstant());
         } else {
             unmute_datetime = Optional.empty();
         }
+        expire_datetime = Optional.ofNullable(set.getTimestamp(column + 7)).map(Timestamp::toInstant);
     }
 }
@@ -26,8 +26,19 @@ public class NICKNAME {
     }
 
     public NICKNAME(ResultSet set) throws SQLException {
-        uuid = set.getString(1);
-        nickname = set.getString(2);
-        datetime = set.getTimestamp(3).toInstant();
+        this(set, 1);
+    }
+
+    /**
+     * CTor
+     *
+     * @param set    {@link ResultSet}
+     * @param column index of the first NICKNAME column
+     * @throws SQLException sql exception
+     */
+    public NICKNAME(ResultSet set, int column) throws SQLException {
+        uuid = set.getString(column);
+        nickname = set.getString(column + 1);
+        datetime = set.getTimestamp(column + 2).toInstant();
     }
 }
@@ -33,9 +33,20 @@ public class USERINFO {
     }
 
     public USERINFO(ResultSet set) throws SQLException {
-        uuid = set.getString(1);
-        join = set.getTimestamp(2).toInstant();
-        last = set.getTimestamp(3).toInstant();
-        playtime = set.getLong(4);
+        this(set, 1);
+    }
+
+    /**
+     * CTor
+     *
+     * @param set    {@link ResultSet}
+     * @param column index of the first USERINFO column
+     * @throws SQLException sql exception
+     */
+    public USERINFO(ResultSet set, int column) throws SQLException {
+        uuid = set.getString(column);
+        join = set.getTimestamp(column + 1).toInstant();
+        last = set.getTimestamp(column + 2).toInstant();
+        playtime = set.getLong(column + 3);
     }
 }
@@ -1,18 +1,30 @@
 package me.htna.project.chatdecorator.placeholderHandlers;
 
-import me.htna.project.chatdecorator.ChatDecorator;
+import me.htna.project.chatdecorator.Config;
+import me.htna.project.chatdecorator.DateTimeFormatterRegistry;
 
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 
 public abstract class BasePlaceholderHandler implements IPlaceholderHandler {
 
+    /**
+     * Reusable buffer of {@link #formatDecimal(double, int)}
+     */
+    private static final ThreadLocal<StringBuilder> DECIMAL_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(32));
+
     protected BasePlaceholderHandler() {
 
     }
 
+    /**
+     * Get formatter registry of the current configuration
+     *
+     * @return {@link DateTimeFormatterRegistry}
+     */
+    protected static DateTimeFormatterRegistry getFormatterRegistry() {
+        return Config.getInstance().getFormatterRegistry();
+    }
+
     /**
      * Get datetime format string
      *
@@ -24,17 +36,7 @@ public abstract class BasePlaceholderHandler implements IPlaceholderHandler {
         if (instant == null)
             return null;
 
-        ChatDecorator plugin = ChatDecorator.getInstance();
-        DateTimeFormatter dateTimePattern;
-        try {
-            dateTimePattern = DateTimeFormatter.ofPattern(format);
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().error("Invalid DateTime format: " + format);
-            plugin.getLogger().error("Use default datetime format");
-            dateTimePattern = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        }
-
-        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault()).format(dateTimePattern);
+        return getFormatterRegistry().format(instant, format, DateTimeFormatterRegistry.Kind.DATETIME);
     }
 
     /**
@@ -47,17 +49,7 @@ public abstract class BasePlaceholderHandler implements IPlaceholderHandler {
         if (instant == null)
             return null;
 
-        ChatDecorator plugin = ChatDecorator.getInstance();
-        DateTimeFormatter dateTimePattern;
-        try {
-            dateTimePattern = DateTimeFormatter.ofPattern(format);
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().error("Invalid date format: " + format);
-            plugin.getLogger().error("Use default date format");
-            dateTimePattern = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        }
-
-        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault()).format(dateTimePattern);
+        return getFormatterRegistry().format(instant, format, DateTimeFormatterRegistry.Kind.DATE);
     }
 
     /**
@@ -70,17 +62,7 @@ public abstract class BasePlaceholderHandler implements IPlaceholderHandler {
         if (instant == null)
             return null;
 
-        ChatDecorator plugin = ChatDecorator.getInstance();
-        DateTimeFormatter dateTimePattern;
-        try {
-            dateTimePattern = DateTimeFormatter.ofPattern(format);
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().error("Invalid time format: " + format);
-            plugin.getLogger().error("Use default time format");
-            dateTimePattern = DateTimeFormatter.ofPattern("HH:mm:ss");
-        }
-
-        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault()).format(dateTimePattern);
+        return getFormatterRegistry().format(instant, format, DateTimeFormatterRegistry.Kind.TIME);
     }
 
     /**
@@ -89,6 +71,10 @@ public abstract class BasePlaceholderHandler implements IPlaceholderHandler {
      * @return datetime format string
      */
     public static String getNowDateTimeString(String format) {
+        DateTimeFormatterRegistry registry = getFormatterRegistry();
+        if (registry.isConfiguredFormat(format, DateTimeFormatterRegistry.Kind.DATETIME))
+            return registry.formatNowDateTime();
+
         return getDateTimeString(Instant.now(), format);
     }
 
@@ -98,6 +84,10 @@ public abstract class BasePlaceholderHandler implements IPlaceholderHandler {
      * @return date format string
      */
     public static String getNowDateString(String format) {
+        DateTimeFormatterRegistry registry = getFormatterRegistry();
+        if (registry.isConfiguredFormat(format, DateTimeFormatterRegistry.Kind.DATE))
+            return registry.formatNowDate();
+
         return getDateString(Instant.now(), format);
     }
 
@@ -107,6 +97,50 @@ public abstract class BasePlaceholderHandler implements IPlaceholderHandler {
      * @return time format string
      */
     public static String getNowTimeString(String format) {
+        DateTimeFormatterRegistry registry = getFormatterRegistry();
+        if (registry.isConfiguredFormat(format, DateTimeFormatterRegistry.Kind.TIME))
+            return registry.formatNowTime();
+
         return getTimeString(Instant.now(), format);
     }
+
+    /**
+     * Append number with fixed fraction digits
+     *
+     * @param sb target buffer
+     * @param value number
+     * @param fractionDigits fraction digits
+     * @return target buffer
+     */
+    public static StringBuilder appendDecimal(StringBuilder sb, double value, int fractionDigits) {
+        return FixedPointFormat.append(sb, value, fractionDigits);
+    }
+
+    /**
+     * Get number string with fixed fraction digits
+     * <p>
+     * Same as String.format("%.2f", value) with '.' separator, but does not create a Formatter.
+     *
+     * @param value number
+     * @param fractionDigits fraction digits
+     * @return number string
+     */
+    public static String formatDecimal(double value, int fractionDigits) {
+        StringBuilder sb = DECIMAL_BUFFER.get();
+        sb.setLength(0);
+        return FixedPointFormat.append(sb, value, fractionDigits).toString();
+    }
+
+    /**
+     * Get percent string of ratio, such as "12.34 %"
+     *
+     * @param ratio 0 ~ 1 ratio
+     * @param fractionDigits fraction digits
+     * @return percent string
+     */
+    public static String formatPercent(double ratio, int fractionDigits) {
+        StringBuilder sb = DECIMAL_BUFFER.get();
+        sb.setLength(0);
+        return FixedPointFormat.append(sb, ratio * 100, fractionDigits).append(" %").toString();
+    }
 }
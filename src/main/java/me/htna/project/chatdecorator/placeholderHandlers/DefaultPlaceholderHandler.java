@@ -9,13 +9,18 @@ import me.htna.project.chatdecorator.struct.UserInfo;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.entity.living.player.Player;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 /**
  * Built-in default placeholder handler
  * <p>
  * username
- * nicknames
+ * nickname
  * joindate
  * lastdate
  * locale
@@ -33,12 +38,16 @@ import java.util.Optional;
  * server_tps
  * server_usecpu
  * server_usecpu_percent
+ * server_usecpu_1m, server_usecpu_5m, server_usecpu_15m
+ * server_usecpu_percent_1m, server_usecpu_percent_5m, server_usecpu_percent_15m
  * server_usemem_gb
  * server_freemem_gb
  * server_totalmem_gb
  * server_usemem_mb
  * server_freemem_mb
  * server_totalmem_mb
+ * server_usemem_gb_1m, server_usemem_gb_5m, server_usemem_gb_15m
+ * server_usemem_mb_1m, server_usemem_mb_5m, server_usemem_mb_15m
  * server_player_count
  * <p>
  * mute_source_name
@@ -54,6 +63,33 @@ import java.util.Optional;
  */
 public class DefaultPlaceholderHandler extends BasePlaceholderHandler {
 
+    /**
+     * Bytes of megabyte
+     */
+    private static final double MB = 1024.0 * 1024.0;
+
+    /**
+     * Bytes of gigabyte
+     */
+    private static final double GB = MB * 1024.0;
+
+    /**
+     * Supported placeholder keys
+     */
+    private static final List<String> KEYS = Collections.unmodifiableList(Arrays.asList(
+            "username", "nickname", "joindate", "lastdate", "locale",
+            "loc_x", "loc_y", "loc_z", "maxhealth", "currenthealth", "message",
+            "server_ping", "server_player_count", "server_datetime", "server_date", "server_time",
+            "server_tps", "server_usecpu", "server_usecpu_percent",
+            "server_usecpu_1m", "server_usecpu_5m", "server_usecpu_15m",
+            "server_usecpu_percent_1m", "server_usecpu_percent_5m", "server_usecpu_percent_15m",
+            "server_freemem_gb", "server_totalmem_gb", "server_usemem_gb",
+            "server_freemem_mb", "server_totalmem_mb", "server_usemem_mb",
+            "server_usemem_gb_1m", "server_usemem_gb_5m", "server_usemem_gb_15m",
+            "server_usemem_mb_1m", "server_usemem_mb_5m", "server_usemem_mb_15m",
+            "mute_source_name", "mute_reason", "mute_datetime", "unmute_source_name", "unmute_datetime",
+            "first_join_datetime", "last_join_datetime", "playtime_total_minute", "playtime_session_minute"));
+
     /**
      * Get target player's last mute info
      *
@@ -61,15 +97,7 @@ public class DefaultPlaceholderHandler extends BasePlaceholderHandler {
      * @return Last mute info
      */
     private Optional<MuteInfo> getLastMuteInfo(Player target) {
-        Optional<UserInfo> userInfo = UserManager.getInstance().findUser(target);
-        if (!userInfo.isPresent())
-            return Optional.empty();
-
-        Optional<MuteInfo> muteInfo = userInfo.get().getLastMuteInfo();
-        if (!muteInfo.isPresent())
-            return Optional.empty();
-
-        return muteInfo;
+        return UserManager.getInstance().findUser(target).flatMap(UserInfo::getLastMuteInfo);
     }
 
     /**
@@ -139,17 +167,16 @@ public class DefaultPlaceholderHandler extends BasePlaceholderHandler {
     /**
      * Parse and replace placeholder
      *
-     * @param placeholder Placeholder key
-     * @param message     {@link Message}
+     * @param key     Placeholder key (lower case, without '%')
+     * @param message {@link Message}
      * @return corresponding value
      */
-    private String parse(String placeholder, Message message) {
-        String key = placeholder.toLowerCase().substring(1, placeholder.length() - 1);
+    private String parse(String key, Message message) {
         switch (key) {
             case "username":
                 return message.getUserName();
             case "nickname":
-                return message.getUserInfo().getNickname();
+                return message.getNickName();
             case "joindate":
                 return getDateTimeString(message.getJoinDate(), Config.getInstance().getDateTimeFormatter());
             case "lastdate":
@@ -179,23 +206,47 @@ public class DefaultPlaceholderHandler extends BasePlaceholderHandler {
             case "server_time":
                 return getNowTimeString(Config.getInstance().getTimeFormatter());
             case "server_tps":
-                return String.format("%.1f", getServerTPS());
+                return formatDecimal(getServerTPS(), 1);
             case "server_usecpu":
-                return String.format("%.2f", HardwareMonitor.getInstance().getSystemCpuLoad());
+                return formatDecimal(HardwareMonitor.getInstance().getSystemCpuLoad(), 2);
             case "server_usecpu_percent":
-                return String.format("%.2f %%", HardwareMonitor.getInstance().getSystemCpuLoad() * 100);
+                return formatPercent(HardwareMonitor.getInstance().getSystemCpuLoad(), 2);
+            case "server_usecpu_1m":
+                return formatDecimal(HardwareMonitor.getInstance().getSystemCpuLoad1m(), 2);
+            case "server_usecpu_5m":
+                return formatDecimal(HardwareMonitor.getInstance().getSystemCpuLoad5m(), 2);
+            case "server_usecpu_15m":
+                return formatDecimal(HardwareMonitor.getInstance().getSystemCpuLoad15m(), 2);
+            case "server_usecpu_percent_1m":
+                return formatPercent(HardwareMonitor.getInstance().getSystemCpuLoad1m(), 2);
+            case "server_usecpu_percent_5m":
+                return formatPercent(HardwareMonitor.getInstance().getSystemCpuLoad5m(), 2);
+            case "server_usecpu_percent_15m":
+                return formatPercent(HardwareMonitor.getInstance().getSystemCpuLoad15m(), 2);
             case "server_freemem_gb":
-                return String.format("%.2f", (double)(HardwareMonitor.getInstance().getSystemFreeMemory() / 1024f / 1024f / 1024f));
+                return formatDecimal(HardwareMonitor.getInstance().getSystemFreeMemory() / GB, 2);
             case "server_totalmem_gb":
-                return String.format("%.2f", (double)(HardwareMonitor.getInstance().getSystemTotalMemory() / 1024f / 1024f / 1024f));
+                return formatDecimal(HardwareMonitor.getInstance().getSystemTotalMemory() / GB, 2);
             case "server_usemem_gb":
-                return String.format("%.2f", (double)(HardwareMonitor.getInstance().getSystemUseMemory() / 1024f / 1024f / 1024f));
+                return formatDecimal(HardwareMonitor.getInstance().getSystemUseMemory() / GB, 2);
             case "server_freemem_mb":
-                return String.format("%.2f", (double)(HardwareMonitor.getInstance().getSystemFreeMemory() / 1024f /  1024f));
+                return formatDecimal(HardwareMonitor.getInstance().getSystemFreeMemory() / MB, 2);
             case "server_totalmem_mb":
-                return String.format("%.2f", (double)(HardwareMonitor.getInstance().getSystemTotalMemory() / 1024f /  1024f));
+                return formatDecimal(HardwareMonitor.getInstance().getSystemTotalMemory() / MB, 2);
             case "server_usemem_mb":
-                return String.format("%.2f", (double)(HardwareMonitor.getInstance().getSystemUseMemory() / 1024f /  1024f));
+                return formatDecimal(HardwareMonitor.getInstance().getSystemUseMemory() / MB, 2);
+            case "server_usemem_gb_1m":
+                return formatDecimal(HardwareMonitor.getInstance().getSystemUseMemory1m() / GB, 2);
+            case "server_usemem_gb_5m":
+                return formatDecimal(HardwareMonitor.getInstance().getSystemUseMemory5m() / GB, 2);
+            case "server_usemem_gb_15m":
+                return formatDecimal(HardwareMonitor.getInstance().getSystemUseMemory15m() / GB, 2);
+            case "server_usemem_mb_1m":
+                return formatDecimal(HardwareMonitor.getInstance().getSystemUseMemory1m() / MB, 2);
+            case "server_usemem_mb_5m":
+                return formatDecimal(HardwareMonitor.getInstance().getSystemUseMemory5m() / MB, 2);
+            case "server_usemem_mb_15m":
+                return formatDecimal(HardwareMonitor.getInstance().getSystemUseMemory15m() / MB, 2);
             case "mute_source_name":
                 return getLastMuteSourceName(message.getPlayer());
             case "mute_reason":
@@ -211,9 +262,9 @@ public class DefaultPlaceholderHandler extends BasePlaceholderHandler {
             case "last_join_datetime":
                 return getDateTimeString(message.getUserInfo().getLastJoin(), Config.getInstance().getDateTimeFormatter());
             case "playtime_total_minute":
-                return String.valueOf((int) (message.getUserInfo().getPlayTime() / 60.0f));
+                return String.valueOf(message.getUserInfo().getPlayTime() / 60);
             case "playtime_session_minute":
-                return String.valueOf((int) (message.getUserInfo().getJoinElapsedTime() / 60.0f));
+                return String.valueOf(message.getUserInfo().getJoinElapsedTime() / 60);
         }
 
         return null;
@@ -238,7 +289,19 @@ public class DefaultPlaceholderHandler extends BasePlaceholderHandler {
      */
     @Override
     public String replace(String placeholder, Message message) {
-        return parse(placeholder, message);
+        return parse(placeholder.toLowerCase(Locale.ROOT).substring(1, placeholder.length() - 1), message);
+    }
+
+    /**
+     * Replace the placeholder key resolved by the dispatch table with the corresponding value.
+     *
+     * @param key     Placeholder key
+     * @param message {@link Message}
+     * @return corresponding value
+     */
+    @Override
+    public String replaceKey(String key, Message message) {
+        return parse(key, message);
     }
 
     /**
@@ -249,6 +312,45 @@ public class DefaultPlaceholderHandler extends BasePlaceholderHandler {
      */
     @Override
     public boolean IsTargetPlaceholder(String placeholder) {
-        return placeholder.split("\\.").length == 1;
+        return placeholder.indexOf('.') < 0;
+    }
+
+    /**
+     * Return placeholder namespace
+     *
+     * @return Empty namespace, placeholders without '.'
+     */
+    @Override
+    public String getNamespace() {
+        return "";
+    }
+
+    /**
+     * Return supported placeholder keys
+     *
+     * @return supported keys
+     */
+    @Override
+    public Collection<String> getSupportedKeys() {
+        return KEYS;
+    }
+
+    /**
+     * Return volatility class of placeholder
+     * <p>
+     * server_* keys except server_ping are same for every player in a tick.
+     *
+     * @param key Placeholder key
+     * @return {@link PlaceholderScope}
+     */
+    @Override
+    public PlaceholderScope getScope(String key) {
+        if (key.equals("message"))
+            return PlaceholderScope.MESSAGE;
+
+        if (key.startsWith("server_") && !key.equals("server_ping"))
+            return PlaceholderScope.TICK;
+
+        return PlaceholderScope.PLAYER;
     }
 }
@@ -0,0 +1,97 @@
+package me.htna.project.chatdecorator.placeholderHandlers;
+
+import java.util.Locale;
+
+/**
+ * Fixed-point decimal formatter
+ * <p>
+ * Appends a number with fixed fraction digits straight into a {@link StringBuilder},
+ * without {@link java.util.Formatter} pattern parsing and locale lookup.
+ * Output is the same as {@code String.format(Locale.ROOT, "%.Nf", value)}, decimal separator is always '.'.
+ * <p>
+ * {@link java.util.Formatter} rounds the shortest decimal representation of the value half-up,
+ * ex) 1.005 is 1.01, though the binary value is slightly below 1.005.
+ * The fast path rounds the scaled binary value, which decides the same except near a tie,
+ * so the values within a few ulps of a tie are formatted with {@link java.util.Formatter}.
+ */
+public final class FixedPointFormat {
+
+    /**
+     * Maximum supported fraction digits
+     */
+    public static final int MAX_FRACTION_DIGITS = 9;
+
+    /**
+     * Scaled values within this many ulps of a tie are formatted with {@link java.util.Formatter}
+     */
+    private static final int TIE_ULPS = 4;
+
+    /**
+     * Values at least this large are formatted with {@link String#format(String, Object...)}
+     */
+    private static final double MAX_FAST_VALUE = 1e15;
+
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L,
+            1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    /**
+     * Fast path limit by fraction digits, the scaled value must fit in a long
+     * ex) 1e12 with 9 fraction digits is 1e21 scaled, it is formatted with {@link String#format(String, Object...)}
+     */
+    private static final double[] MAX_FAST_VALUES = new double[POW10.length];
+
+    static {
+        for (int i = 0; i < POW10.length; i++)
+            MAX_FAST_VALUES[i] = Math.min(MAX_FAST_VALUE, Long.MAX_VALUE / POW10[i]);
+    }
+
+    private FixedPointFormat() {
+    }
+
+    /**
+     * Append number with fixed fraction digits
+     *
+     * @param sb             target buffer
+     * @param value          number
+     * @param fractionDigits fraction digits (0 ~ {@link #MAX_FRACTION_DIGITS})
+     * @return target buffer
+     */
+    public static StringBuilder append(StringBuilder sb, double value, int fractionDigits) {
+        if (fractionDigits < 0 || fractionDigits > MAX_FRACTION_DIGITS)
+            throw new IllegalArgumentException("Unsupported fraction digits: " + fractionDigits);
+
+        if (Double.isNaN(value))
+            return sb.append("NaN");
+
+        if (Double.isInfinite(value))
+            return sb.append(value > 0 ? "Infinity" : "-Infinity");
+
+        double abs = Math.abs(value);
+        if (abs >= MAX_FAST_VALUES[fractionDigits])
+            return sb.append(String.format(Locale.ROOT, "%." + fractionDigits + "f", value));
+
+        long scale = POW10[fractionDigits];
+        double exact = abs * scale;
+        // 이진 근사값으로는 .5 근처의 반올림 방향을 알 수 없으므로 10진 표현 기준으로 반올림
+        if (Math.abs(exact - Math.floor(exact) - 0.5) <= TIE_ULPS * Math.ulp(exact))
+            return sb.append(String.format(Locale.ROOT, "%." + fractionDigits + "f", value));
+
+        long scaled = (long) (exact + 0.5);
+        // 0으로 반올림된 음수도 Formatter처럼 부호 유지, ex) -0.00
+        if (Double.doubleToRawLongBits(value) < 0)
+            sb.append('-');
+
+        sb.append(scaled / scale);
+        if (fractionDigits == 0)
+            return sb;
+
+        sb.append('.');
+        long fraction = scaled % scale;
+        for (int i = fractionDigits - 1; i > 0 && fraction < POW10[i]; i--)
+            sb.append('0');
+
+        return sb.append(fraction);
+    }
+}
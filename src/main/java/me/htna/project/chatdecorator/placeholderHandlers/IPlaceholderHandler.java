@@ -2,6 +2,9 @@ package me.htna.project.chatdecorator.placeholderHandlers;
 
 import me.htna.project.chatdecorator.struct.Message;
 
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  * Placeholder handler interface
  */
@@ -32,4 +35,57 @@ public interface IPlaceholderHandler {
      * @return if true, placeholder is the target of this handler.
      */
     boolean IsTargetPlaceholder(String placeholder);
+
+    /**
+     * Return placeholder namespace
+     *
+     * Placeholder %NAMESPACE.key% is dispatched to this handler by {@link #getSupportedKeys()}.
+     * Empty string is the namespace of placeholder without '.' (%key%).
+     * If null, this handler is not indexed and {@link #IsTargetPlaceholder(String)} is used instead.
+     *
+     * @return namespace
+     */
+    default String getNamespace() {
+        return null;
+    }
+
+    /**
+     * Return supported placeholder keys
+     *
+     * Keys do not contain the namespace and '%', and are matched case-insensitively.
+     *
+     * @return supported keys
+     */
+    default Collection<String> getSupportedKeys() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Return volatility class of placeholder
+     *
+     * The corresponding value is memoized at this scope.
+     * Default is {@link PlaceholderScope#MESSAGE}, which is never memoized.
+     *
+     * @param key Placeholder key declared in {@link #getSupportedKeys()},
+     *            or whole placeholder if this handler has no namespace
+     * @return {@link PlaceholderScope}
+     */
+    default PlaceholderScope getScope(String key) {
+        return PlaceholderScope.MESSAGE;
+    }
+
+    /**
+     * Replace the placeholder key resolved by the dispatch table with the corresponding value.
+     *
+     * @param key Placeholder key declared in {@link #getSupportedKeys()}
+     * @param message {@link Message}
+     * @return corresponding value
+     */
+    default String replaceKey(String key, Message message) {
+        String namespace = getNamespace();
+        if (namespace == null || namespace.isEmpty())
+            return replace("%" + key + "%", message);
+
+        return replace("%" + namespace + "." + key + "%", message);
+    }
 }
@@ -7,6 +7,10 @@ import net.luckperms.api.model.group.Group;
 import net.luckperms.api.model.user.User;
 import org.spongepowered.api.entity.living.player.Player;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.OptionalInt;
 
 /**
@@ -23,6 +27,17 @@ import java.util.OptionalInt;
  */
 public class LPPlaceholderHandler implements IPlaceholderHandler {
 
+    /**
+     * Placeholder namespace
+     */
+    private static final String NAMESPACE = "LP";
+
+    /**
+     * Supported placeholder keys
+     */
+    private static final List<String> KEYS = Collections.unmodifiableList(Arrays.asList(
+            "group_displayname", "group_weight", "group_name"));
+
     /**
      * LuckPerms instance
      */
@@ -62,11 +77,16 @@ public class LPPlaceholderHandler implements IPlaceholderHandler {
      * @return corresponding value
      */
     private String parse(String placeholder, Message message) {
-        String[] p = placeholder.split("_");
+        int separator = placeholder.indexOf('_');
+        if (separator < 0)
+            return null;
+
+        String type = placeholder.substring(0, separator);
+        String key = placeholder.substring(separator + 1);
         User user = lp.getPlayerAdapter(Player.class).getUser(message.getPlayer());
-        switch (p[0]) {
-            // case "user": return parseUser(p[1], user);
-            case "group": return parseGroup(p[1], lp.getGroupManager().getGroup(user.getPrimaryGroup()));
+        switch (type) {
+            // case "user": return parseUser(key, user);
+            case "group": return parseGroup(key, lp.getGroupManager().getGroup(user.getPrimaryGroup()));
         }
 
         return null;
@@ -100,9 +120,20 @@ public class LPPlaceholderHandler implements IPlaceholderHandler {
      */
     @Override
     public String replace(String placeholder, Message message) {
-        String s = placeholder.split("\\.")[1];
-        String key = s.substring(0, s.length() - 1);
+        String key = placeholder.substring(NAMESPACE.length() + 2, placeholder.length() - 1);
+
+        return parse(key, message);
+    }
 
+    /**
+     * Replace the placeholder key resolved by the dispatch table with the corresponding value.
+     *
+     * @param key Placeholder key
+     * @param message {@link Message}
+     * @return corresponding value
+     */
+    @Override
+    public String replaceKey(String key, Message message) {
         return parse(key, message);
     }
 
@@ -114,9 +145,37 @@ public class LPPlaceholderHandler implements IPlaceholderHandler {
      */
     @Override
     public boolean IsTargetPlaceholder(String placeholder) {
-        String[] split = placeholder.split("\\.");
-        if (split.length <= 1)
-            return false;
-        return split[0].equals("%LP");
+        return placeholder.startsWith("%" + NAMESPACE + ".");
+    }
+
+    /**
+     * Return placeholder namespace
+     *
+     * @return "LP"
+     */
+    @Override
+    public String getNamespace() {
+        return NAMESPACE;
+    }
+
+    /**
+     * Return supported placeholder keys
+     *
+     * @return supported keys
+     */
+    @Override
+    public Collection<String> getSupportedKeys() {
+        return KEYS;
+    }
+
+    /**
+     * Return volatility class of placeholder
+     *
+     * @param key Placeholder key
+     * @return {@link PlaceholderScope#PLAYER}, every key depends on the player's primary group
+     */
+    @Override
+    public PlaceholderScope getScope(String key) {
+        return PlaceholderScope.PLAYER;
     }
 }
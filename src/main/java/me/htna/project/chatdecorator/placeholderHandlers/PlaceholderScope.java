@@ -0,0 +1,32 @@
+package me.htna.project.chatdecorator.placeholderHandlers;
+
+/**
+ * Volatility class of placeholder corresponding value
+ * <p>
+ * The template renderer memoizes the corresponding value at this scope.
+ */
+public enum PlaceholderScope {
+    /**
+     * Never changes until the configuration is reloaded.
+     * Computed once per compiled template.
+     */
+    CONSTANT,
+
+    /**
+     * Same for every player during one server tick (server status, datetime, ...).
+     * Computed once per tick.
+     */
+    TICK,
+
+    /**
+     * Depends only on the player.
+     * Computed once per {@link me.htna.project.chatdecorator.struct.Message}, and shared by every template rendered with it.
+     */
+    PLAYER,
+
+    /**
+     * Depends on the message itself.
+     * Computed on every render.
+     */
+    MESSAGE
+}
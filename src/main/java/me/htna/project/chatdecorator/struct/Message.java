@@ -11,78 +11,71 @@ import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
 import java.time.Instant;
-
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Render context of a template
+ * <p>
+ * Player data is read lazily on first access, so only the fields used by the template are fetched.
+ * A message is rendered by one thread at a time, so the lazy fields are not synchronized.
+ */
 public class Message {
 
+    private static final int LOADED_USERINFO = 1;
+    private static final int LOADED_JOINDATA = 1 << 1;
+    private static final int LOADED_LOCALE = 1 << 2;
+    private static final int LOADED_LOCATION = 1 << 3;
+    private static final int LOADED_HEALTH = 1 << 4;
+
     @Getter
     private MessageChannelEvent.Chat raw;
 
     @Getter
     private Player player;
 
-    @Getter
     private UserInfo userInfo;
 
     @Getter
     private String userName;
 
-    @Getter
     private String nickName;
 
-    @Getter
     private Instant joinDate;
 
-    @Getter
     private Instant lastDate;
 
-    @Getter
     private String locale;
 
-    @Getter
     private String loc_X;
 
-    @Getter
     private String loc_Y;
 
-    @Getter
     private String loc_Z;
 
-    @Getter
     private String maxHealth;
 
-    @Getter
     private String currentHealth;
 
     @Getter
     private String message;
 
+    /**
+     * Loaded lazy field flags
+     */
+    private int loaded;
+
+    /**
+     * Player scoped placeholder values memoized for this message
+     */
+    private Map<Object, String> placeholderValues;
+
     public Message(Player player) {
         if (player == null)
             return;
 
         this.player = player;
-        var userInfo = UserManager.getInstance().findUser(player);
-        if (userInfo.isPresent()) {
-            this.userInfo = userInfo.get();
-            this.nickName = this.userInfo.getNickname();
-        }
-
         userName = player.getName();
-
-        JoinData joinData = player.getJoinData();
-        joinDate = joinData.firstPlayed().exists() ? joinData.firstPlayed().get() : null;
-        lastDate = joinData.lastPlayed().exists() ? joinData.lastPlayed().get() : null;
-
-        locale = player.getLocale().toString();
-
-        Location<World> loc = player.getLocation();
-        loc_X = String.valueOf(loc.getX());
-        loc_Y = String.valueOf(loc.getY());
-        loc_Z = String.valueOf(loc.getZ());
-
-        HealthData healthData = player.getHealthData();
-        maxHealth = healthData.maxHealth().exists() ? healthData.maxHealth().get().toString() : null;
-        currentHealth = healthData.health().exists() ? healthData.health().get().toString() : null;
     }
 
     public Message(MessageChannelEvent.Chat chat) {
@@ -96,4 +89,133 @@ public class Message {
         this.userName = userName;
         this.message = message;
     }
+
+    /**
+     * Check the lazy field should be loaded now
+     *
+     * @param flag lazy field flag
+     * @return if true, the field is not loaded yet and player exists
+     */
+    private boolean needLoad(int flag) {
+        if ((loaded & flag) != 0)
+            return false;
+
+        loaded |= flag;
+        return player != null;
+    }
+
+    public UserInfo getUserInfo() {
+        if (needLoad(LOADED_USERINFO)) {
+            var userInfo = UserManager.getInstance().findUser(player);
+            if (userInfo.isPresent()) {
+                this.userInfo = userInfo.get();
+                this.nickName = this.userInfo.getNickname();
+            }
+        }
+        return userInfo;
+    }
+
+    public String getNickName() {
+        getUserInfo();
+        return nickName;
+    }
+
+    public Instant getJoinDate() {
+        loadJoinData();
+        return joinDate;
+    }
+
+    public Instant getLastDate() {
+        loadJoinData();
+        return lastDate;
+    }
+
+    private void loadJoinData() {
+        if (needLoad(LOADED_JOINDATA)) {
+            JoinData joinData = player.getJoinData();
+            joinDate = joinData.firstPlayed().exists() ? joinData.firstPlayed().get() : null;
+            lastDate = joinData.lastPlayed().exists() ? joinData.lastPlayed().get() : null;
+        }
+    }
+
+    public String getLocale() {
+        if (needLoad(LOADED_LOCALE))
+            locale = player.getLocale().toString();
+        return locale;
+    }
+
+    public String getLoc_X() {
+        loadLocation();
+        return loc_X;
+    }
+
+    public String getLoc_Y() {
+        loadLocation();
+        return loc_Y;
+    }
+
+    public String getLoc_Z() {
+        loadLocation();
+        return loc_Z;
+    }
+
+    private void loadLocation() {
+        if (needLoad(LOADED_LOCATION)) {
+            Location<World> loc = player.getLocation();
+            loc_X = String.valueOf(loc.getX());
+            loc_Y = String.valueOf(loc.getY());
+            loc_Z = String.valueOf(loc.getZ());
+        }
+    }
+
+    public String getMaxHealth() {
+        loadHealth();
+        return maxHealth;
+    }
+
+    public String getCurrentHealth() {
+        loadHealth();
+        return currentHealth;
+    }
+
+    private void loadHealth() {
+        if (needLoad(LOADED_HEALTH)) {
+            HealthData healthData = player.getHealthData();
+            maxHealth = healthData.maxHealth().exists() ? healthData.maxHealth().get().toString() : null;
+            currentHealth = healthData.health().exists() ? healthData.health().get().toString() : null;
+        }
+    }
+
+    /**
+     * Check the placeholder value is memoized
+     *
+     * @param key placeholder binding
+     * @return if true, value is memoized
+     */
+    public boolean hasPlaceholderValue(Object key) {
+        return placeholderValues != null && placeholderValues.containsKey(key);
+    }
+
+    /**
+     * Get memoized placeholder value
+     *
+     * @param key placeholder binding
+     * @return memoized value
+     */
+    public String getPlaceholderValue(Object key) {
+        return placeholderValues == null ? null : placeholderValues.get(key);
+    }
+
+    /**
+     * Memoize placeholder value
+     *
+     * @param key   placeholder binding
+     * @param value corresponding value
+     */
+    public void putPlaceholderValue(Object key, String value) {
+        if (placeholderValues == null)
+            placeholderValues = new HashMap<>();
+
+        placeholderValues.put(key, value);
+    }
 }
@@ -7,45 +7,66 @@ import java.time.Instant;
 
 /**
  * Player mute info class
+ * <p>
+ * Immutable, unmute makes a new mute info. So it is safely shared with the threads reading the mute state.
  */
 public class MuteInfo {
     /**
      * The uuid of the source who muted this
      */
     @Getter
-    private String muteSourceUuid;
+    private final String muteSourceUuid;
 
     /**
      * The uuid of the source who unmuted this
      */
     @Getter
-    private String unmuteSourceUuid;
+    private final String unmuteSourceUuid;
 
     /**
      * Reason of mute
      */
     @Getter
-    private String reason;
+    private final String reason;
 
     /**
      * Mute datetime
      */
     @Getter
-    private Instant muteDateTime;
+    private final Instant muteDateTime;
 
     /**
      * Unmute datetime
      */
     @Getter
-    private Instant unmuteDateTime;
+    private final Instant unmuteDateTime;
+
+    /**
+     * Expire datetime of the timed mute, null if the mute has no expiry
+     */
+    @Getter
+    private final Instant expireDateTime;
 
     /**
      * Get mute status
+     * <p>
+     * A timed mute is not muted after the expiry, even before {@link me.htna.project.chatdecorator.MuteExpiryScheduler} unmutes it.
      *
      * @return if true, muted
      */
     public boolean isMute() {
-        return muteDateTime != null && unmuteDateTime == null;
+        return muteDateTime != null && unmuteDateTime == null
+                && (expireDateTime == null || Instant.now().isBefore(expireDateTime));
+    }
+
+    /**
+     * Is the timed mute expired and not unmuted yet
+     *
+     * @return if true, expired
+     */
+    public boolean isExpired() {
+        return muteDateTime != null && unmuteDateTime == null
+                && expireDateTime != null && !Instant.now().isBefore(expireDateTime);
     }
 
     /**
@@ -59,42 +80,69 @@ public class MuteInfo {
         return muteDateTime != null && unmuteDateTime != null;
     }
 
-    public MuteInfo() {}
+    /**
+     * CTor
+     *
+     * @param muteSourceUuid   The uuid of the source who muted
+     * @param reason           Reason of mute
+     * @param muteDateTime     Mute datetime
+     * @param unmuteSourceUuid The uuid of the source who unmuted, null if muted
+     * @param unmuteDateTime   Unmute datetime, null if muted
+     * @param expireDateTime   Expire datetime, null if the mute has no expiry
+     */
+    private MuteInfo(String muteSourceUuid, String reason, Instant muteDateTime, String unmuteSourceUuid, Instant unmuteDateTime,
+                     Instant expireDateTime) {
+        this.muteSourceUuid = muteSourceUuid;
+        this.reason = reason;
+        this.muteDateTime = muteDateTime;
+        this.unmuteSourceUuid = unmuteSourceUuid;
+        this.unmuteDateTime = unmuteDateTime;
+        this.expireDateTime = expireDateTime;
+    }
+
     public MuteInfo(MUTEINFO table) {
-        this.muteSourceUuid = table.getMute_source_uuid();
-        this.reason = table.getReason();
-        this.muteDateTime = table.getMute_datetime();
-        table.getUnmute_source_uuid().ifPresent(x -> unmuteSourceUuid = x);
-        table.getUnmute_datetime().ifPresent(x -> unmuteDateTime = x);
+        this(table.getMute_source_uuid(), table.getReason(), table.getMute_datetime(),
+                table.getUnmute_source_uuid().orElse(null), table.getUnmute_datetime().orElse(null),
+                table.getExpire_datetime().orElse(null));
     }
 
     /**
      * Mute
      *
-     * @param sourceUuid Source uuid
-     * @param reason     Reason of mute
-     * @throws IllegalStateException Already muted
+     * @param sourceUuid     Source uuid
+     * @param reason         Reason of mute
+     * @param expireDateTime Expire datetime, null if the mute has no expiry
+     * @return mute info muted now
      */
-    public void mute(String sourceUuid, String reason) throws IllegalStateException {
-        if (muteDateTime != null) {
-            throw new IllegalStateException("Already muted");
-        }
-        this.muteSourceUuid = sourceUuid;
-        this.reason = reason;
-        muteDateTime = Instant.now();
+    public static MuteInfo mute(String sourceUuid, String reason, Instant expireDateTime) {
+        return new MuteInfo(sourceUuid, reason, Instant.now(), null, null, expireDateTime);
     }
 
     /**
      * Unmute
      *
      * @param sourceUuid source uuid
+     * @return mute info unmuted now
      * @throws IllegalStateException Not muted
      */
-    public void unmute(String sourceUuid) throws IllegalStateException {
-        if (muteDateTime == null) {
+    public MuteInfo unmute(String sourceUuid) throws IllegalStateException {
+        if (!isMute()) {
             throw new IllegalStateException("Not muted");
         }
-        unmuteSourceUuid = sourceUuid;
-        unmuteDateTime = Instant.now();
+        return new MuteInfo(muteSourceUuid, reason, muteDateTime, sourceUuid, Instant.now(), expireDateTime);
+    }
+
+    /**
+     * Unmute the expired timed mute
+     *
+     * @param sourceUuid source uuid
+     * @return mute info unmuted at the expire datetime
+     * @throws IllegalStateException Not expired
+     */
+    public MuteInfo expire(String sourceUuid) throws IllegalStateException {
+        if (!isExpired()) {
+            throw new IllegalStateException("Not expired");
+        }
+        return new MuteInfo(muteSourceUuid, reason, muteDateTime, sourceUuid, expireDateTime, expireDateTime);
     }
 }
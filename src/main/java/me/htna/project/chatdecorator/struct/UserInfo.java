@@ -1,14 +1,18 @@
 package me.htna.project.chatdecorator.struct;
 
 import lombok.Getter;
+import me.htna.project.chatdecorator.database.UserProfile;
 import org.spongepowered.api.entity.living.player.Player;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * User state in memory
+ * <p>
+ * Written on the server thread and read by the async tasks, so the mutable fields are volatile.
+ */
 public class UserInfo {
     /**
      * User's uuid
@@ -20,32 +24,43 @@ public class UserInfo {
      * User's nickname
      */
     @Getter
-    private String nickname;
+    private volatile String nickname;
 
     /**
      * First join datetime
      */
     @Getter
-    private Instant firstJoin;
+    private final Instant firstJoin;
 
     /**
      * Last Join datetime
      */
     @Getter
-    private Instant lastJoin;
+    private volatile Instant lastJoin;
 
     /**
-     * Playtime second
+     * Playtime second, until the last join while joined
      */
-    private long playTime;
+    private volatile long playTime;
+
+    /**
+     * Playtime second written to the database
+     */
+    private volatile long savedPlayTime;
 
     /**
      * Get user's connection status
      */
     @Getter
-    private boolean isJoined;
+    private volatile boolean isJoined;
 
-    private List<MuteInfo> muteInfoList;
+    /**
+     * Last mute info, the active mute if muted
+     * <p>
+     * Replaced on mute and unmute, so the chat path reads the mute state without going through the history.
+     * The full history is read from the database by {@code /cd mutelog}.
+     */
+    private volatile MuteInfo lastMuteInfo;
 
     /**
      * CTor
@@ -57,27 +72,38 @@ public class UserInfo {
         this.firstJoin = first;
         this.lastJoin = last;
         this.playTime = playTime;
+        this.savedPlayTime = playTime;
         this.nickname = "";
 
-        muteInfoList = new ArrayList<>();
     }
 
     /**
      * Player joins the server
+     * <p>
+     * Playtime not written to the database yet is kept instead of the database playtime.
      *
      * @param time
      * @param playTime
      */
     public void join(Instant time, long playTime) {
+        if (!isPlayTimeDirty()) {
+            this.playTime = playTime;
+            this.savedPlayTime = playTime;
+        }
         this.lastJoin = time;
-        this.playTime = playTime;
         this.isJoined = true;
     }
 
     /**
      * Player exits from server.
+     * <p>
+     * Playtime stops increasing.
      */
     public void exit() {
+        if (!isJoined)
+            return;
+
+        this.playTime = getPlayTime();
         this.isJoined = false;
     }
 
@@ -87,9 +113,30 @@ public class UserInfo {
      * @return
      */
     public long getPlayTime() {
+        if (!isJoined)
+            return playTime;
+
         return playTime + Instant.now().getEpochSecond() - getLastJoin().getEpochSecond();
     }
 
+    /**
+     * Is the playtime changed after written to the database
+     *
+     * @return true if the playtime should be written
+     */
+    public boolean isPlayTimeDirty() {
+        return getPlayTime() != savedPlayTime;
+    }
+
+    /**
+     * Mark the playtime written to the database
+     *
+     * @param playTime written playtime
+     */
+    public void setSavedPlayTime(long playTime) {
+        this.savedPlayTime = playTime;
+    }
+
     /**
      * get join elapsed time latest session
      *
@@ -114,16 +161,7 @@ public class UserInfo {
      * @return {@link Optional} Last mute info
      */
     public Optional<MuteInfo> getLastMuteInfo() {
-        return muteInfoList.stream().reduce((f, s) -> s);
-    }
-
-    /**
-     * Get mute info list
-     *
-     * @return Mute info list
-     */
-    public List<MuteInfo> getMuteInfoList() {
-        return muteInfoList;
+        return Optional.ofNullable(lastMuteInfo);
     }
 
     /**
@@ -132,31 +170,33 @@ public class UserInfo {
      * @return
      */
     public boolean isMute() {
-        return getLastMuteInfo().map(MuteInfo::isMute).orElse(false);
+        MuteInfo muteInfo = lastMuteInfo;
+        return muteInfo != null && muteInfo.isMute();
     }
 
-    public void setMuteInfoList(List<MuteInfo> muteinfos) {
-        this.muteInfoList = muteinfos;
+    /**
+     * Apply nickname and last mute info of the stored profile
+     *
+     * @param profile {@link UserProfile}
+     */
+    public void applyProfile(UserProfile profile) {
+        profile.getNickname().ifPresent(x -> setNickname(x.getNickname()));
+        lastMuteInfo = profile.getLastMuteInfo().map(MuteInfo::new).orElse(null);
     }
 
     /**
      * Mute this user
      *
-     * @param sourceUuid The uuid of the source who muted this user
-     * @param reason    Reason for mute
+     * @param sourceUuid     The uuid of the source who muted this user
+     * @param reason         Reason for mute
+     * @param expireDateTime Expire datetime, null if the mute has no expiry
      * @return if true, success mute
      */
-    public boolean mute(String sourceUuid, String reason) {
+    public synchronized boolean mute(String sourceUuid, String reason, Instant expireDateTime) {
         if (isMute())
             return false;
 
-        MuteInfo muteInfo = new MuteInfo();
-        try {
-            muteInfo.mute(sourceUuid, reason);
-        } catch (IllegalStateException ex) {
-            return false;
-        }
-        muteInfoList.add(muteInfo);
+        lastMuteInfo = MuteInfo.mute(sourceUuid, reason, expireDateTime);
         return true;
     }
 
@@ -166,13 +206,26 @@ public class UserInfo {
      * @param sourceUuid The uuid of the source who unmuted this user
      * @return If true, unmute success
      */
-    public boolean unmute(String sourceUuid) {
+    public synchronized boolean unmute(String sourceUuid) {
         if (!isMute())
             return false;
 
-        return getLastMuteInfo().map(x -> {
-            x.unmute(sourceUuid);
-            return true;
-        }).orElse(false);
+        lastMuteInfo = lastMuteInfo.unmute(sourceUuid);
+        return true;
+    }
+
+    /**
+     * Unmute the expired timed mute of the user
+     *
+     * @param sourceUuid The uuid of the source who unmuted this user
+     * @return If true, the mute was expired and is unmuted now
+     */
+    public synchronized boolean expireMute(String sourceUuid) {
+        MuteInfo muteInfo = lastMuteInfo;
+        if (muteInfo == null || !muteInfo.isExpired())
+            return false;
+
+        lastMuteInfo = muteInfo.expire(sourceUuid);
+        return true;
     }
 }